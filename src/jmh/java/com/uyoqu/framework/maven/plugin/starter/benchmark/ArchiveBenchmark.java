@@ -0,0 +1,132 @@
+package com.uyoqu.framework.maven.plugin.starter.benchmark;
+
+import com.uyoqu.framework.maven.plugin.starter.utils.CompressionPolicy;
+import com.uyoqu.framework.maven.plugin.starter.utils.TarUtils;
+import com.uyoqu.framework.maven.plugin.starter.utils.ZipConfig;
+import com.uyoqu.framework.maven.plugin.starter.utils.ZipUtil;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压缩、解压、归档的吞吐量<br>
+ * 每次调用处理一整个合成目录，结果为每秒处理的目录数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ArchiveBenchmark {
+
+    @Param({SyntheticTrees.CLASSES, SyntheticTrees.JARS, SyntheticTrees.WEBAPP})
+    public String shape;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private File tree;
+
+    private File work;
+
+    private File zipFile;
+
+    private File tarFile;
+
+    private File tarGzFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tree = SyntheticTrees.get(shape);
+        work = new File(tree.getParentFile(), "work-" + shape + "-" + threads);
+        FileUtils.deleteDirectory(work);
+        work.mkdirs();
+        zipFile = new File(work, "input.zip");
+        tarFile = new File(work, "input.tar");
+        tarGzFile = new File(work, "input.tar.gz");
+        ZipUtil.zip(zipFile, tree, config());
+        TarUtils.archive(tree, tarFile);
+        TarUtils.archiveGz(tree, tarGzFile, null, threads, -1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(work);
+    }
+
+    @Benchmark
+    public File zip() {
+        return ZipUtil.zip(new File(work, "out.zip"), tree, config());
+    }
+
+    @Benchmark
+    public File zipLegacy() {
+        return ZipUtil.zip(new File(work, "legacy.zip"), StandardCharsets.UTF_8, false, tree);
+    }
+
+    @Benchmark
+    public File unzip() throws IOException {
+        final File out = cleanDir("unzip");
+        return threads > 1 ? ZipUtil.unzip(zipFile, out, StandardCharsets.UTF_8, threads) : ZipUtil.unzip(zipFile, out, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public File tar() throws Exception {
+        final File out = new File(work, "out.tar");
+        TarUtils.archive(tree, out);
+        return out;
+    }
+
+    @Benchmark
+    public File tarGz() throws Exception {
+        final File out = new File(work, "out.tar.gz");
+        TarUtils.archiveGz(tree, out, null, threads, -1);
+        return out;
+    }
+
+    @Benchmark
+    public File dearchive() throws Exception {
+        final File out = cleanDir("dearchive");
+        if (threads > 1) {
+            TarUtils.dearchive(tarFile, out, threads);
+        } else {
+            TarUtils.dearchive(tarFile, out);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public File dearchiveGz() throws Exception {
+        final File out = cleanDir("dearchive-gz");
+        TarUtils.dearchive(tarGzFile, out, threads);
+        return out;
+    }
+
+    private ZipConfig config() {
+        return ZipConfig.create().setThreads(threads).setCompressionPolicy(CompressionPolicy.defaults(-1));
+    }
+
+    private File cleanDir(String name) throws IOException {
+        final File dir = new File(work, name);
+        FileUtils.deleteDirectory(dir);
+        dir.mkdirs();
+        return dir.getAbsoluteFile();
+    }
+}
@@ -0,0 +1,48 @@
+package com.uyoqu.framework.maven.plugin.starter.benchmark;
+
+import com.uyoqu.framework.maven.plugin.starter.utils.ClassUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.loader.tools.MainClassFinder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动类查找的吞吐量，在5000个class文件的合成目录中查找启动类
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClassScanBenchmark {
+
+    private File classes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        classes = new File(SyntheticTrees.get(SyntheticTrees.CLASSES), "WEB-INF/classes");
+    }
+
+    @Benchmark
+    public String springBootAnnotation() throws IOException {
+        return MainClassFinder.findSingleMainClass(classes, "org.springframework.boot.autoconfigure.SpringBootApplication");
+    }
+
+    @Benchmark
+    public String matchClass() throws IOException {
+        return ClassUtil.findSingleMainClass(classes, "Application");
+    }
+}
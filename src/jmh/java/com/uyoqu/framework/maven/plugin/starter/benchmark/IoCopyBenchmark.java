@@ -0,0 +1,102 @@
+package com.uyoqu.framework.maven.plugin.starter.benchmark;
+
+import com.uyoqu.framework.maven.plugin.starter.utils.IoUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IoUtil#copy}在不同缓存大小及数据大小下的吞吐量<br>
+ * memory为内存到内存的拷贝，file为包装成非File流后文件到文件的拷贝（走缓存拷贝），channel为文件流直接拷贝（走通道传输）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IoCopyBenchmark {
+
+    @Param({"1024", "8192", "65536", "262144"})
+    public int bufferSize;
+
+    @Param({"4096", "1048576", "67108864"})
+    public int size;
+
+    private byte[] data;
+
+    private File source;
+
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        source = File.createTempFile("bench-copy", ".src");
+        target = File.createTempFile("bench-copy", ".dst");
+        try (OutputStream out = new FileOutputStream(source)) {
+            out.write(data);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        source.delete();
+        target.delete();
+    }
+
+    @Benchmark
+    public long memory() {
+        return IoUtil.copy(new ByteArrayInputStream(data), NullOutputStream.INSTANCE, bufferSize);
+    }
+
+    @Benchmark
+    public long file() throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(source), 1);
+             OutputStream out = new FileOutputStream(target)) {
+            return IoUtil.copy(in, out, bufferSize);
+        }
+    }
+
+    @Benchmark
+    public long channel() throws IOException {
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new FileOutputStream(target)) {
+            return IoUtil.copy(in, out, bufferSize);
+        }
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.uyoqu.framework.maven.plugin.starter.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 峰值常驻内存（RSS）分析器<br>
+ * 每轮迭代结束时读取/proc/self/status中的VmHWM，结果为fork进程至今的峰值RSS，单位MB，取各轮最大值。
+ * 非Linux系统不输出结果。
+ * <pre>
+ * 使用：-prof com.uyoqu.framework.maven.plugin.starter.benchmark.PeakRssProfiler
+ * </pre>
+ */
+public class PeakRssProfiler implements InternalProfiler {
+
+    private static final Path STATUS = Paths.get("/proc/self/status");
+
+    private static final String PEAK_RSS = "VmHWM:";
+
+    @Override
+    public String getDescription() {
+        return "Peak resident set size (VmHWM) of the forked VM";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        if (false == Files.isReadable(STATUS)) {
+            return Collections.emptyList();
+        }
+        try {
+            for (String line : Files.readAllLines(STATUS, StandardCharsets.US_ASCII)) {
+                if (line.startsWith(PEAK_RSS)) {
+                    final long kb = Long.parseLong(line.substring(PEAK_RSS.length()).replace("kB", "").trim());
+                    return Collections.singletonList(new ScalarResult("·rss.peak", kb / 1024.0, "MB", AggregationPolicy.MAX));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 读取失败时不输出结果
+        }
+        return Collections.emptyList();
+    }
+}
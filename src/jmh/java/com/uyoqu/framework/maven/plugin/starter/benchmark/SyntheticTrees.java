@@ -0,0 +1,145 @@
+package com.uyoqu.framework.maven.plugin.starter.benchmark;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * 基准测试使用的合成目录<br>
+ * 按形态生成固定内容（固定随机种子）的目录，生成后缓存在jmh.trees（默认target/jmh-trees）下，多次运行及多个fork之间复用：
+ * <pre>
+ * classes 大量很小的class文件，其中一个为@SpringBootApplication启动类
+ * jars    少量大jar，内容不可压缩
+ * webapp  混合的web应用：可压缩的html/js/css、不可压缩的图片和jar、class文件
+ * </pre>
+ */
+public class SyntheticTrees {
+
+    public static final String CLASSES = "classes";
+
+    public static final String JARS = "jars";
+
+    public static final String WEBAPP = "webapp";
+
+    /**
+     * 合成目录中的启动类名称
+     */
+    public static final String MAIN_CLASS = "bench.app.Application";
+
+    private static final String SPRING_BOOT_APPLICATION = "Lorg/springframework/boot/autoconfigure/SpringBootApplication;";
+
+    private static final String MARKER = ".complete";
+
+    private static final File BASE_DIR = new File(System.getProperty("jmh.trees", "target/jmh-trees"));
+
+    /**
+     * 获取指定形态的合成目录，不存在时生成
+     *
+     * @param shape 形态
+     * @return 目录
+     * @throws IOException IO异常
+     */
+    public static synchronized File get(String shape) throws IOException {
+        final File root = new File(BASE_DIR, shape).getAbsoluteFile();
+        if (new File(root, MARKER).isFile()) {
+            return root;
+        }
+        final Random random = new Random(shape.hashCode());
+        switch (shape) {
+            case CLASSES:
+                writeClasses(new File(root, "WEB-INF/classes"), 5000, random);
+                break;
+            case JARS:
+                for (int i = 0; i < 3; i++) {
+                    writeRandom(new File(root, "WEB-INF/lib/huge-" + i + ".jar"), 64 * 1024 * 1024, random);
+                }
+                break;
+            case WEBAPP:
+                for (int i = 0; i < 200; i++) {
+                    final String ext = i % 3 == 0 ? "html" : i % 3 == 1 ? "js" : "css";
+                    writeText(new File(root, "static/" + (i % 10) + "/page-" + i + "." + ext), 20 * 1024, random);
+                }
+                for (int i = 0; i < 100; i++) {
+                    writeRandom(new File(root, "static/img/image-" + i + ".png"), 50 * 1024, random);
+                }
+                for (int i = 0; i < 20; i++) {
+                    writeRandom(new File(root, "WEB-INF/lib/dep-" + i + ".jar"), 1024 * 1024, random);
+                }
+                writeClasses(new File(root, "WEB-INF/classes"), 1000, random);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown tree shape: " + shape);
+        }
+        new File(root, MARKER).createNewFile();
+        return root;
+    }
+
+    private static void writeClasses(File classesDir, int count, Random random) throws IOException {
+        write(new File(classesDir, MAIN_CLASS.replace('.', '/') + ".class"), mainClass());
+        for (int i = 0; i < count; i++) {
+            final String name = "bench/pkg" + (i % 50) + "/Generated" + i;
+            write(new File(classesDir, name + ".class"), plainClass(name, random.nextInt(8)));
+        }
+    }
+
+    private static byte[] mainClass() {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, MAIN_CLASS.replace('.', '/'), null, "java/lang/Object", null);
+        writer.visitAnnotation(SPRING_BOOT_APPLICATION, true).visitEnd();
+        final MethodVisitor main = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V", null, null);
+        main.visitCode();
+        main.visitInsn(Opcodes.RETURN);
+        main.visitMaxs(0, 0);
+        main.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] plainClass(String name, int methods) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        for (int i = 0; i < methods; i++) {
+            final MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "()I", null, null);
+            method.visitCode();
+            method.visitLdcInsn(i);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void writeText(File file, int size, Random random) throws IOException {
+        final String[] words = {"<div>", "</div>", "function", "return", "var", "color:", "margin:", "{", "}", "\n"};
+        final StringBuilder text = new StringBuilder(size + 16);
+        while (text.length() < size) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        write(file, text.toString().getBytes("UTF-8"));
+    }
+
+    private static void writeRandom(File file, int size, Random random) throws IOException {
+        file.getParentFile().mkdirs();
+        final byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (int written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
+}
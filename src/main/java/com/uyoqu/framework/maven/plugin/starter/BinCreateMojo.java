@@ -1,15 +1,37 @@
 package com.uyoqu.framework.maven.plugin.starter;
 
+import com.uyoqu.framework.maven.plugin.starter.utils.AppCds;
+import com.uyoqu.framework.maven.plugin.starter.utils.BuildFingerprint;
+import com.uyoqu.framework.maven.plugin.starter.utils.BuildReport;
+import com.uyoqu.framework.maven.plugin.starter.utils.ClassFootprint;
+import com.uyoqu.framework.maven.plugin.starter.utils.ClassIndex;
 import com.uyoqu.framework.maven.plugin.starter.utils.ClassUtil;
+import com.uyoqu.framework.maven.plugin.starter.utils.ClasspathFiles;
+import com.uyoqu.framework.maven.plugin.starter.utils.CompressionPolicy;
+import com.uyoqu.framework.maven.plugin.starter.utils.ContainerSizing;
+import com.uyoqu.framework.maven.plugin.starter.utils.DeflateCache;
+import com.uyoqu.framework.maven.plugin.starter.utils.FileUtil;
+import com.uyoqu.framework.maven.plugin.starter.utils.JarMainClassFinder;
+import com.uyoqu.framework.maven.plugin.starter.utils.JvmProfile;
+import com.uyoqu.framework.maven.plugin.starter.utils.TarUtils;
 import com.uyoqu.framework.maven.plugin.starter.utils.TextUtil;
+import com.uyoqu.framework.maven.plugin.starter.utils.ZipConfig;
+import com.uyoqu.framework.maven.plugin.starter.utils.ZipFingerprints;
+import com.uyoqu.framework.maven.plugin.starter.utils.ZipLayers;
+import com.uyoqu.framework.maven.plugin.starter.utils.ZipSources;
 import com.uyoqu.framework.maven.plugin.starter.utils.ZipUtil;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,15 +40,78 @@ import org.springframework.util.CollectionUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
 
-@Mojo(name = "bin", defaultPhase = LifecyclePhase.PREPARE_PACKAGE)
+@Mojo(name = "bin", defaultPhase = LifecyclePhase.PREPARE_PACKAGE, requiresDependencyResolution = ResolutionScope.RUNTIME,
+        threadSafe = true)
 public class BinCreateMojo extends AbstractMojo {
     private static final Logger logger = LoggerFactory.getLogger(BinCreateMojo.class);
 
     private static final String SPRING_BOOT_APPLICATION_CLASS_NAME = "org.springframework.boot.autoconfigure.SpringBootApplication";
 
+    /**
+     * zip格式可表示的最早时间，1980-01-01T00:00:02Z
+     */
+    private static final long MIN_ZIP_TIME = 315532802000L;
+
+    private static final List<String> SCRIPTS = Arrays.asList("start", "stop", "restart");
+
+    private static final String CLASSPATH_JAR = "jar";
+
+    private static final String CLASSPATH_ARGFILE = "argfile";
+
+    private static final String CLASSPATH_RUNTIME = "runtime";
+
+    /**
+     * bin目录下的AppCDS归档文件名，同名加.jdk后缀的文件记录生成归档的java -version输出，
+     * 加.mtimes后缀的文件记录训练时classpath中各文件的修改时间
+     */
+    private static final String CDS_ARCHIVE = "app.jsa";
+
+    /**
+     * 开启AppCDS时WEB-INF/classes打包成的jar，位于bin目录
+     */
+    private static final String CDS_CLASSES_JAR = "app-classes.jar";
+
+    /**
+     * 未配置project.build.outputTimestamp时pathing jar中条目的时间，1980-01-01T00:00:00Z，zip格式可表示的最早时间，
+     * 使classpath.jar的内容只由jar列表决定
+     */
+    private static final long PATHING_JAR_TIME = 315532800000L;
+
+    private static final String FORMAT_WAR = "war";
+
+    private static final String FORMAT_TAR_GZ = "tar.gz";
+
+    private static final String LAYER_DEPENDENCIES = "dependencies";
+
+    private static final String LAYER_SNAPSHOT_DEPENDENCIES = "snapshot-dependencies";
+
+    private static final String LAYER_APPLICATION = "application";
+
+    private static final String LAYER_SCRIPTS = "scripts";
+
+    /**
+     * 分层输出的层，按变化频率由低到高排列
+     */
+    private static final List<String> LAYERS = Arrays.asList(
+            LAYER_DEPENDENCIES, LAYER_SNAPSHOT_DEPENDENCIES, LAYER_APPLICATION, LAYER_SCRIPTS);
+
     @Parameter
     private String mainClass;
 
@@ -36,6 +121,73 @@ public class BinCreateMojo extends AbstractMojo {
     @Parameter
     private List<String> jvms;
 
+    /**
+     * 未配置jvms时使用的JVM参数模板：throughput-g1、low-latency-zgc、shenandoah、small-heap-serial、batch-parallel、legacy-cms
+     */
+    @Parameter(property = "bin.jvmProfile", defaultValue = JvmProfile.DEFAULT)
+    private String jvmProfile;
+
+    /**
+     * JVM参数模板的堆大小，如2048m，为空时使用模板的默认值
+     */
+    @Parameter(property = "bin.jvmHeap")
+    private String jvmHeap;
+
+    /**
+     * 运行环境的JDK版本，用于校验JVM参数模板，为空时依次取maven.compiler.release、maven.compiler.target及构建使用的JDK版本
+     */
+    @Parameter(property = "bin.targetJdk")
+    private String targetJdk;
+
+    /**
+     * 是否在启动时按容器（cgroup v1/v2）或物理内存及CPU限制计算JVM参数，只对JVM参数模板生效，配置jvms时不计算
+     */
+    @Parameter(property = "bin.containerSizing", defaultValue = "true")
+    private boolean containerSizing;
+
+    /**
+     * 堆占内存限制的百分比，0表示使用模板或jvmHeap的固定值；配置jvmHeap时不计算堆
+     */
+    @Parameter(property = "bin.heapPercent", defaultValue = "70")
+    private int heapPercent;
+
+    /**
+     * 直接内存（-XX:MaxDirectMemorySize）占内存限制的百分比，0表示不设置
+     */
+    @Parameter(property = "bin.directMemoryPercent", defaultValue = "10")
+    private int directMemoryPercent;
+
+    /**
+     * 元空间上限（-XX:MaxMetaspaceSize）占内存限制的百分比，0表示使用模板中的固定值
+     */
+    @Parameter(property = "bin.metaspacePercent", defaultValue = "0")
+    private int metaspacePercent;
+
+    /**
+     * 并行GC线程数（-XX:ParallelGCThreads）占CPU数的百分比，并发GC线程数为其1/4，0表示由JVM决定
+     */
+    @Parameter(property = "bin.gcThreadsPercent", defaultValue = "100")
+    private int gcThreadsPercent;
+
+    /**
+     * 是否按打包内容的类数量及字节码体积计算JVM参数模板的MetaspaceSize及代码缓存大小，为false时使用模板中的固定值。
+     * 元空间上限不按估算值设置，仍使用模板中的值或按容器内存计算（见metaspacePercent）
+     */
+    @Parameter(property = "bin.classFootprintSizing", defaultValue = "true")
+    private boolean classFootprintSizing;
+
+    /**
+     * 按类数量估算元空间时的余量百分比
+     */
+    @Parameter(property = "bin.metaspaceHeadroom", defaultValue = "25")
+    private int metaspaceHeadroom;
+
+    /**
+     * 按字节码体积估算代码缓存时的余量百分比
+     */
+    @Parameter(property = "bin.codeCacheHeadroom", defaultValue = "25")
+    private int codeCacheHeadroom;
+
     @Parameter
     private String matchClass;
 
@@ -49,32 +201,516 @@ public class BinCreateMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.directory}", required = true)
     private File outputDirectory;
 
+    /**
+     * 重新打包时的压缩线程数，小于等于0时使用CPU核数，为1时只使用一个压缩线程。
+     * 插件总是配置压缩策略（见compressionRules），均由ParallelZipCreator压缩，输出与线程数无关
+     */
+    @Parameter(property = "bin.zipThreads", defaultValue = "0")
+    private int zipThreads;
+
+    /**
+     * 并行压缩时暂存压缩数据的内存预算，单位MB
+     */
+    @Parameter(property = "bin.zipMemoryBudget", defaultValue = "128")
+    private int zipMemoryBudget;
+
+    /**
+     * 压缩规则，格式为 通配符=stored 或 通配符=压缩级别(0~9)，按顺序匹配条目路径，先匹配先生效<br>
+     * 未配置时jar、png、woff、gz等已压缩格式使用STORED存储
+     */
+    @Parameter
+    private List<String> compressionRules;
+
+    /**
+     * 未匹配任何压缩规则的条目使用的压缩级别，-1为默认级别
+     */
+    @Parameter(property = "bin.compressionLevel", defaultValue = "-1")
+    private int compressionLevel;
+
+    /**
+     * 可重现打包的时间戳，取自project.build.outputTimestamp，支持ISO-8601格式或秒级时间戳。
+     * 配置后war包条目按名称排序、时间与权限统一，相同输入得到完全相同的war包
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    private String outputTimestamp;
+
+    /**
+     * 是否直接由编译输出、依赖jar及生成的脚本流式打包，不依赖也不写入target/finalName展开目录
+     */
+    @Parameter(property = "bin.streaming", defaultValue = "false")
+    private boolean streaming;
+
+    /**
+     * 流式打包时加入war包根目录的web资源目录
+     */
+    @Parameter(defaultValue = "${basedir}/src/main/webapp")
+    private File warSourceDirectory;
+
+    /**
+     * 输出格式，逗号分隔：war、tar.gz（或tgz）。tar.gz以finalName为顶层目录，多线程压缩为单个标准gzip流，sh脚本保留可执行权限
+     */
+    @Parameter(property = "bin.formats", defaultValue = FORMAT_WAR)
+    private String formats;
+
+    /**
+     * 是否额外输出分层压缩包：dependencies、snapshot-dependencies、application、scripts，
+     * 每层在layers.idx中记录内容摘要，部署时只需传输摘要变化的层
+     */
+    @Parameter(property = "bin.layered", defaultValue = "false")
+    private boolean layered;
+
+    /**
+     * 分层压缩包的输出目录
+     */
+    @Parameter(defaultValue = "${project.build.directory}/${project.build.finalName}-layers")
+    private File layersDirectory;
+
+    /**
+     * 是否增量打包，在war包旁保存指纹清单，只重新压缩新增或变化的文件
+     */
+    @Parameter(property = "bin.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * 增量打包时是否按文件内容摘要判断变化，默认只比较文件大小和修改时间
+     */
+    @Parameter(property = "bin.incrementalHash", defaultValue = "false")
+    private boolean incrementalHash;
+
+    /**
+     * 是否输出构建报告：各阶段耗时、解析的class文件数、读取及写出的字节数、压缩率、吞吐量及最慢的条目，
+     * 以JSON写入reportFile并在控制台输出摘要
+     */
+    @Parameter(property = "bin.report", defaultValue = "true")
+    private boolean report;
+
+    /**
+     * 构建报告文件
+     */
+    @Parameter(property = "bin.reportFile", defaultValue = "${project.build.directory}/${project.build.finalName}-bin-report.json")
+    private File reportFile;
+
+    /**
+     * 是否使用class元数据索引查找启动类，索引保存在classIndexFile中，之后的构建只重新解析变化的class文件。
+     * 为false时每次构建都重新扫描：注解查找使用spring-boot-loader-tools的MainClassFinder，类名匹配只读取class文件头（见ClassUtil），
+     * 两种方式的类名匹配规则相同（见ClassHeader#matches）
+     */
+    @Parameter(property = "bin.classIndex", defaultValue = "true")
+    private boolean classIndex;
+
+    /**
+     * class元数据索引文件
+     */
+    @Parameter(property = "bin.classIndexFile", defaultValue = "${project.build.directory}/bin-classes.idx")
+    private File classIndexFile;
+
+    /**
+     * 在WEB-INF/classes中未找到启动类时，是否继续在依赖jar中查找
+     */
+    @Parameter(property = "bin.searchJars", defaultValue = "true")
+    private boolean searchJars;
+
+    /**
+     * 查找启动类的依赖jar，格式为 groupId:artifactId，支持*、?通配符；未配置时查找与工程groupId相同的依赖
+     */
+    @Parameter
+    private List<String> mainClassJars;
+
+    /**
+     * 依赖jar中启动类的缓存文件，按jar内容摘要缓存扫描结果，未变化的jar不再重复扫描
+     */
+    @Parameter(property = "bin.jarClassCache", defaultValue = "${user.home}/.m2/bin-cache/jar-main-classes.idx")
+    private File jarClassCache;
+
+    /**
+     * 是否使用压缩数据缓存，内容相同的条目直接使用缓存中的压缩数据，不再重新压缩
+     */
+    @Parameter(property = "bin.deflateCache", defaultValue = "false")
+    private boolean deflateCache;
+
+    /**
+     * 压缩数据缓存目录，可在多个工程及多次构建间共享
+     */
+    @Parameter(property = "bin.deflateCacheDir", defaultValue = "${user.home}/.m2/bin-plugin-cache")
+    private File deflateCacheDir;
+
+    /**
+     * 压缩数据缓存大小上限，单位MB，超过时淘汰最久未使用的条目
+     */
+    @Parameter(property = "bin.deflateCacheSize", defaultValue = "2048")
+    private long deflateCacheSize;
+
+    /**
+     * 压缩数据缓存的最小条目大小，单位KB，更小的条目不缓存
+     */
+    @Parameter(property = "bin.deflateCacheMinSize", defaultValue = "64")
+    private long deflateCacheMinSize;
+
+    /**
+     * 输入未变化时是否跳过打包：按目录树、依赖及其顺序、插件配置、脚本模板及插件版本计算指纹，并核对上一次的输出文件，
+     * 与上一次打包完全一致时直接返回，可用-Dbin.force=true强制重新打包
+     */
+    @Parameter(property = "bin.skipUnchanged", defaultValue = "true")
+    private boolean skipUnchanged;
+
+    /**
+     * 是否忽略指纹强制重新打包
+     */
+    @Parameter(property = "bin.force", defaultValue = "false")
+    private boolean force;
+
+    /**
+     * 上一次打包的输入指纹文件
+     */
+    @Parameter(defaultValue = "${project.build.directory}/${project.build.finalName}-bin.fingerprint")
+    private File fingerprintFile;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor plugin;
+
+    /**
+     * 启动脚本的classpath形式：<br>
+     * jar：构建时按依赖顺序生成只含清单的bin/classpath.jar，兼容Java 8；<br>
+     * argfile：构建时按依赖顺序生成JVM参数文件bin/classpath.args，需Java 9及以上；<br>
+     * runtime：启动时列出WEB-INF/lib目录拼接classpath，顺序随主机文件系统而定
+     */
+    @Parameter(property = "bin.classpathMode", defaultValue = CLASSPATH_JAR)
+    private String classpathMode;
+
+    /**
+     * 是否生成AppCDS归档：以打包好的应用做一次训练运行，在bin目录生成app.jsa，启动脚本在JDK版本一致时自动加载。
+     * 需JDK 10及以上，不支持流式打包及runtime形式的classpath。JVM只归档jar中的类，开启后WEB-INF/classes打包为bin/app-classes.jar
+     * 代替原目录加入classpath，部署后直接修改WEB-INF/classes下的文件不再生效
+     */
+    @Parameter(property = "bin.appCds", defaultValue = "false")
+    private boolean appCds;
+
+    /**
+     * 训练及生成归档使用的java命令，应与运行环境的JDK版本完全一致
+     */
+    @Parameter(property = "bin.cdsJava", defaultValue = "${java.home}/bin/java")
+    private String cdsJava;
+
+    /**
+     * 训练运行的最长时间，单位秒，超时后终止进程，终止时写出归档
+     */
+    @Parameter(property = "bin.cdsTrainingSeconds", defaultValue = "120")
+    private long cdsTrainingSeconds;
+
+    /**
+     * 训练运行的额外JVM参数，如-Dspring.context.exit=onRefresh使Spring Boot应用在启动完成后立即退出
+     */
+    @Parameter
+    private List<String> cdsTrainingArgs;
+
+    private Map<String, Artifact> runtimeJars;
+
+    private Map<String, byte[]> renderedScripts;
+
+    /**
+     * 查找启动类后生成的JVM参数模板脚本片段
+     */
+    private String jvmProfileScript;
+
+    /**
+     * 查找启动类时加载的class索引，未使用索引时为null
+     */
+    private ClassIndex loadedClassIndex;
+
+    /**
+     * 流式打包时生成的classpath文件内容，war、tar.gz及分层输出共用
+     */
+    private byte[] renderedClasspathFile;
+
+    /**
+     * 配置的启动类，查找启动类前记录，未配置时为null，计算输入指纹时使用，不受查找结果影响
+     */
+    private String configuredMainClass;
+
+    /**
+     * cdsJava的java -version输出，首次计算输入指纹时获取
+     */
+    private String cdsJavaVersion;
+
+    private long scriptsTime;
+
+    private BuildReport buildReport;
+
+    private DeflateCache compressionCache;
 
     public void execute() throws MojoFailureException {
+        configuredMainClass = mainClass;
+        if (isUpToDate()) {
+            return;
+        }
+        if (CollectionUtils.isEmpty(jvms)) {
+            try {
+                JvmProfile.of(jvmProfile).validate(resolveTargetJdk());
+            } catch (IllegalArgumentException e) {
+                throw new MojoFailureException(e.getMessage(), e);
+            }
+        }
+        buildReport = new BuildReport(serverName);
+        if (deflateCache) {
+            compressionCache = new DeflateCache(deflateCacheDir,
+                    deflateCacheSize * 1024L * 1024L, deflateCacheMinSize * 1024L);
+        }
+        BuildReport.Phase phase = buildReport.phase("configMainClass");
         try {
             configMainClass();
         } catch (IOException e) {
             throw new MojoFailureException("configMainClass异常");
+        } finally {
+            phase.close();
+        }
+        if (CollectionUtils.isEmpty(jvms)) {
+            try {
+                jvmProfileScript = renderJvmProfile();
+            } catch (IllegalArgumentException e) {
+                throw new MojoFailureException(e.getMessage(), e);
+            }
+        }
+        if (streaming) {
+            if (appCds) {
+                logger.warn("流式打包没有展开目录，无法进行AppCDS训练，已跳过");
+            }
+            zipStreaming();
+        } else {
+            phase = buildReport.phase("createStarterBin");
+            try {
+                createStarterBin();
+            } finally {
+                phase.close();
+            }
+            if (appCds) {
+                phase = buildReport.phase("appCds");
+                try {
+                    createAppCds();
+                } finally {
+                    phase.close();
+                }
+            }
+            zip();
+        }
+        trimDeflateCache();
+        writeReport();
+        if (skipUnchanged) {
+            // 在输出写完后计算，下一次打包时输出文件的大小及修改时间应与此一致
+            inputFingerprint().save(fingerprintFile);
+        }
+    }
+
+    /**
+     * 输入指纹与上一次打包一致时跳过打包
+     *
+     * @return 是否跳过
+     * @throws MojoFailureException 读取脚本模板失败
+     */
+    private boolean isUpToDate() throws MojoFailureException {
+        if (false == skipUnchanged) {
+            return false;
+        }
+        if (force) {
+            logger.info("已指定bin.force，强制重新打包");
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        List<String> changed = inputFingerprint().diff(BuildFingerprint.load(fingerprintFile));
+        if (changed.isEmpty()) {
+            logger.info("输入及输出均未变化，跳过打包（耗时{}ms），指定-Dbin.force=true可强制重新打包",
+                    System.currentTimeMillis() - start);
+            return true;
+        }
+        logger.info("输入变化：{}，重新打包", changed);
+        return false;
+    }
+
+    /**
+     * 计算打包的输入指纹：插件版本、运行打包的JDK、影响输出的配置、依赖顺序、脚本模板、内容来源（展开目录，或流式打包时的web资源、编译输出及依赖jar）
+     * 以及上一次的输出文件。启动类记录配置值，未配置时查找到的启动类由内容来源决定；
+     * JDK影响压缩结果，开启AppCDS时归档与cdsJava的版本绑定，均计入指纹
+     *
+     * @return 指纹
+     * @throws MojoFailureException 读取脚本模板失败
+     */
+    private BuildFingerprint inputFingerprint() throws MojoFailureException {
+        BuildFingerprint fingerprint = new BuildFingerprint();
+        fingerprint.add("plugin", "version", null == plugin ? null : plugin.getVersion())
+                .addFile("plugin", null == plugin ? null : plugin.getPluginArtifact().getFile());
+        fingerprint.add("runtime", "java.vendor", runtimeProperty("java.vendor"))
+                .add("runtime", "java.version", runtimeProperty("java.version"))
+                .add("runtime", "java.home", runtimeProperty("java.home"));
+        if (appCds) {
+            fingerprint.add("runtime", "cdsJava", cdsJavaVersion());
+        }
+        fingerprint.add("config", "mainClass", configuredMainClass)
+                .add("config", "serverName", serverName)
+                .add("config", "jvms", jvms)
+                .add("config", "jvmProfile", jvmProfile)
+                .add("config", "jvmHeap", jvmHeap)
+                .add("config", "targetJdk", targetJdk)
+                .add("config", "containerSizing", containerSizing)
+                .add("config", "heapPercent", heapPercent)
+                .add("config", "directMemoryPercent", directMemoryPercent)
+                .add("config", "metaspacePercent", metaspacePercent)
+                .add("config", "gcThreadsPercent", gcThreadsPercent)
+                .add("config", "classFootprintSizing", classFootprintSizing)
+                .add("config", "metaspaceHeadroom", metaspaceHeadroom)
+                .add("config", "codeCacheHeadroom", codeCacheHeadroom)
+                .add("config", "matchClass", matchClass)
+                .add("config", "zipThreads", zipThreads)
+                .add("config", "compressionRules", compressionRules)
+                .add("config", "compressionLevel", compressionLevel)
+                .add("config", "outputTimestamp", outputTimestamp)
+                .add("config", "streaming", streaming)
+                .add("config", "warSourceDirectory", warSourceDirectory)
+                .add("config", "formats", formats)
+                .add("config", "layered", layered)
+                .add("config", "layersDirectory", layersDirectory)
+                .add("config", "incremental", incremental)
+                .add("config", "incrementalHash", incrementalHash)
+                .add("config", "report", report)
+                .add("config", "reportFile", reportFile)
+                .add("config", "classIndex", classIndex)
+                .add("config", "searchJars", searchJars)
+                .add("config", "mainClassJars", mainClassJars)
+                .add("config", "classpathMode", classpathMode)
+                .add("config", "appCds", appCds)
+                .add("config", "cdsJava", cdsJava)
+                .add("config", "cdsTrainingSeconds", cdsTrainingSeconds)
+                .add("config", "cdsTrainingArgs", cdsTrainingArgs);
+        // 分组内的行排序后计算摘要，依赖顺序决定classpath文件中jar的顺序，合并为一行记录
+        List<String> classpath = new ArrayList<>();
+        for (Map.Entry<String, Artifact> jar : runtimeJars().entrySet()) {
+            classpath.add(jar.getKey() + "=" + jar.getValue().getId());
+        }
+        fingerprint.add("classpath", "runtimeJars", String.join(",", classpath));
+        List<String> templates = new ArrayList<>();
+        for (String s : SCRIPTS) {
+            templates.add(s + ".txt");
+        }
+        for (String template : templates) {
+            try {
+                fingerprint.add("templates", template,
+                        ZipFingerprints.sha256Hex(TextUtil.readFileAsStream(template).getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new MojoFailureException("读取脚本模板" + template + "失败", e);
+            }
+        }
+        if (streaming) {
+            fingerprint.addTree("sources", warSourceDirectory)
+                    .addTree("sources", classesDirectory());
+            for (Map.Entry<String, Artifact> jar : runtimeJars().entrySet()) {
+                fingerprint.add("sources", "WEB-INF/lib/" + jar.getKey(), jar.getValue().getFile().getAbsolutePath())
+                        .addFile("sources", jar.getValue().getFile());
+            }
+        } else {
+            fingerprint.addTree("sources", new File(outputDirectory, serverName));
+        }
+        if (hasFormat(FORMAT_WAR)) {
+            fingerprint.addFile("outputs", new File(outputDirectory, serverName + ".war"));
+        }
+        if (hasFormat(FORMAT_TAR_GZ)) {
+            fingerprint.addFile("outputs", new File(outputDirectory, serverName + ".tar.gz"));
+        }
+        if (layered) {
+            fingerprint.addTree("outputs", layersDirectory);
+        }
+        if (report) {
+            fingerprint.addFile("outputs", reportFile);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 运行打包的JDK的系统属性，计入输入指纹
+     *
+     * @param key 属性名，如java.version
+     * @return 属性值
+     */
+    String runtimeProperty(String key) {
+        return System.getProperty(key);
+    }
+
+    /**
+     * cdsJava的版本信息，执行失败时返回失败原因，此时指纹与成功时不同，不会误判为未变化
+     */
+    private String cdsJavaVersion() {
+        if (null == cdsJavaVersion) {
+            try {
+                cdsJavaVersion = new AppCds(cdsJava, null, null).javaVersion();
+            } catch (IOException e) {
+                cdsJavaVersion = "error: " + e.getMessage();
+            }
+        }
+        return cdsJavaVersion;
+    }
+
+    /**
+     * 输出压缩数据缓存的统计并淘汰超出上限的条目
+     */
+    private void trimDeflateCache() {
+        if (null == compressionCache) {
+            return;
+        }
+        compressionCache.trim();
+        logger.info("压缩缓存 {}，缓存目录：{}", compressionCache.stats(), deflateCacheDir);
+    }
+
+    /**
+     * 输出构建报告
+     */
+    private void writeReport() {
+        if (false == report) {
+            return;
         }
-        createStarterBin();
-        zip();
+        for (String line : buildReport.summary()) {
+            logger.info("构建报告 {}", line);
+        }
+        buildReport.write(reportFile);
+        logger.info("构建报告文件：{}", reportFile);
     }
 
+    /**
+     * 未配置mainClass时查找启动类，依次为：
+     * <ol>
+     *     <li>未配置matchClass时查找带@SpringBootApplication注解且有main方法的类</li>
+     *     <li>配置了matchClass时查找类名或父类名包含matchClass的类</li>
+     *     <li>开启searchJars时在依赖jar中查找（见{@link #findMainClassInJars()}）</li>
+     * </ol>
+     * WEB-INF/classes默认查询class索引（classIndex），关闭时改为全量扫描，两种方式的查找结果一致
+     *
+     * @throws IOException 读取class文件失败且未找到启动类
+     */
     private void configMainClass() throws IOException {
         if (StringUtils.isNotBlank(mainClass)) {
             return;
         }
         try {
-            String mainClassScanRootPath = genFileByName("").getParentFile().getAbsolutePath() + "/WEB-INF/classes";
-            File rootFile = new File(mainClassScanRootPath);
+            File rootFile = classesDirectory();
+            ClassIndex index = classIndex ? loadClassIndex(rootFile) : null;
+            loadedClassIndex = index;
             if (StringUtils.isBlank(matchClass)) {
                 logger.info("正在通过判断@SpringBootApplication注解寻找启动类");
-                mainClass = MainClassFinder.findSingleMainClass(rootFile,
-                        SPRING_BOOT_APPLICATION_CLASS_NAME);
+                if (null != index) {
+                    mainClass = singleClass(index.findMainClasses(SPRING_BOOT_APPLICATION_CLASS_NAME));
+                } else {
+                    buildReport.addClassFilesParsed(countClassFiles(rootFile));
+                    mainClass = MainClassFinder.findSingleMainClass(rootFile,
+                            SPRING_BOOT_APPLICATION_CLASS_NAME);
+                }
             }
             if (StringUtils.isBlank(mainClass) && StringUtils.isNotBlank(matchClass)) {
                 logger.info("正在通过类名匹配寻找启动类");
-                mainClass = ClassUtil.findSingleMainClass(rootFile, matchClass);
+                if (null != index) {
+                    mainClass = singleClass(index.findMatchClasses(matchClass));
+                } else {
+                    buildReport.addClassFilesParsed(countClassFiles(rootFile));
+                    mainClass = ClassUtil.findSingleMainClass(rootFile, matchClass);
+                }
+            }
+            if (StringUtils.isBlank(mainClass) && searchJars) {
+                mainClass = findMainClassInJars();
             }
             if (StringUtils.isBlank(mainClass)) {
                 throw new IllegalArgumentException("用户未配置启动类且插件未自动找到启动类");
@@ -89,25 +725,533 @@ public class BinCreateMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * 加载并更新class元数据索引，只重新解析变化的class文件
+     *
+     * @param rootFile class文件根目录
+     * @return 索引
+     */
+    private ClassIndex loadClassIndex(File rootFile) {
+        ClassIndex index = ClassIndex.load(classIndexFile).update(rootFile);
+        index.save();
+        buildReport.addClassFilesParsed(index.getParsedCount());
+        logger.info("class索引：共{}个类，重新解析{}个", index.getClasses().size(), index.getParsedCount());
+        return index;
+    }
+
+    /**
+     * 在依赖jar中查找启动类，规则与WEB-INF/classes中一致，但类名匹配只比较类名，不比较父类名
+     *
+     * @return 启动类，未找到时为null
+     */
+    private String findMainClassInJars() {
+        List<File> jars = new ArrayList<>();
+        for (Artifact artifact : runtimeJars().values()) {
+            if (isMainClassJar(artifact)) {
+                jars.add(artifact.getFile());
+            }
+        }
+        if (jars.isEmpty()) {
+            return null;
+        }
+        logger.info("正在依赖jar中寻找启动类，共{}个jar", jars.size());
+        JarMainClassFinder finder = JarMainClassFinder.load(jarClassCache);
+        String found = StringUtils.isBlank(matchClass)
+                ? singleClass(finder.findMainClasses(jars, SPRING_BOOT_APPLICATION_CLASS_NAME))
+                : singleClass(finder.findMatchClasses(jars, matchClass));
+        finder.save();
+        logger.info("扫描jar{}个，其余命中缓存", finder.getScannedCount());
+        return found;
+    }
+
+    /**
+     * 依赖是否参与启动类查找
+     *
+     * @param artifact 依赖
+     * @return 是否参与
+     */
+    private boolean isMainClassJar(Artifact artifact) {
+        if (CollectionUtils.isEmpty(mainClassJars)) {
+            return artifact.getGroupId().equals(project.getGroupId());
+        }
+        String coordinate = artifact.getGroupId() + ":" + artifact.getArtifactId();
+        for (String pattern : mainClassJars) {
+            if (FilenameUtils.wildcardMatch(coordinate, pattern.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从候选类中取唯一的启动类
+     *
+     * @param candidates 候选类
+     * @return 启动类，没有候选类时为null
+     */
+    private static String singleClass(List<String> candidates) {
+        if (candidates.size() > 1) {
+            throw new IllegalStateException("无法确定唯一的启动类，候选类为：" + candidates);
+        }
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * 统计目录下的class文件数，寻找启动类时每个class文件都会被解析一次
+     *
+     * @param dir 目录
+     * @return class文件数
+     */
+    private static long countClassFiles(File dir) {
+        if (false == dir.isDirectory()) {
+            return 0;
+        }
+        return FileUtils.listFiles(dir, new String[]{"class"}, true).size();
+    }
+
+    /**
+     * 启动类扫描目录，流式打包时为编译输出目录，否则为展开目录下的WEB-INF/classes
+     *
+     * @return class文件根目录
+     */
+    private File classesDirectory() {
+        if (streaming) {
+            return new File(project.getBuild().getOutputDirectory());
+        }
+        return new File(new File(outputDirectory, serverName), "WEB-INF/classes");
+    }
+
     /**
      * 对工程进行重新打包
      */
-    private void zip() {
-        String targetWarFilePath = new File(this.outputDirectory, serverName + ".war").getAbsolutePath();
-        String sourceDirPath = new File(this.outputDirectory, serverName).getAbsolutePath() + File.separator;
-        logger.info("压缩目录：{},压缩目标文件{}", sourceDirPath, targetWarFilePath);
-        ZipUtil.zip(sourceDirPath, targetWarFilePath);
-//        TextUtil.zip(targetWarFilePath, sourceDirPath);
+    private void zip() throws MojoFailureException {
+        File sourceDir = new File(this.outputDirectory, serverName);
+        if (hasFormat(FORMAT_WAR)) {
+            String targetWarFilePath = new File(this.outputDirectory, serverName + ".war").getAbsolutePath();
+            String sourceDirPath = sourceDir.getAbsolutePath() + File.separator;
+            ZipConfig config = zipConfig();
+            logger.info("压缩目录：{},压缩目标文件{},压缩线程数{}", sourceDirPath, targetWarFilePath, config.getThreads());
+            try (BuildReport.Phase phase = buildReport.phase("zip:" + FORMAT_WAR)) {
+                ZipUtil.zip(FileUtil.file(targetWarFilePath), FileUtil.file(sourceDirPath), config);
+                phase.addOutput(FileUtil.file(targetWarFilePath));
+            }
+            logCompressionReport(config);
+//            TextUtil.zip(targetWarFilePath, sourceDirPath);
+        }
+        if (hasFormat(FORMAT_TAR_GZ)) {
+            tarGz(ZipSources.create().addDir(sourceDir, serverName + "/"));
+        }
+        if (layered) {
+            zipLayers(ZipSources.create().addDir(sourceDir, ""));
+        }
+    }
+
+    /**
+     * 不经过展开目录，直接由web资源、编译输出、依赖jar及生成的脚本一次写出war包
+     *
+     * @throws MojoFailureException 生成脚本失败
+     */
+    private void zipStreaming() throws MojoFailureException {
+        ZipSources sources = streamingSources("");
+        if (hasFormat(FORMAT_WAR)) {
+            File targetWarFile = new File(this.outputDirectory, serverName + ".war");
+            ZipConfig config = zipConfig();
+            logger.info("流式打包，压缩目标文件{},依赖{}个,压缩线程数{}", targetWarFile, runtimeJars().size(), config.getThreads());
+            try (BuildReport.Phase phase = buildReport.phase("zip:" + FORMAT_WAR)) {
+                ZipUtil.zip(targetWarFile, sources, config);
+                phase.addOutput(targetWarFile);
+            }
+            logCompressionReport(config);
+        }
+        if (hasFormat(FORMAT_TAR_GZ)) {
+            tarGz(streamingSources(serverName + "/"));
+        }
+        if (layered) {
+            zipLayers(sources);
+        }
+    }
+
+    /**
+     * 流式打包的内容来源：web资源、编译输出、依赖jar及生成的脚本
+     *
+     * @param prefix 所有条目的路径前缀，为空或以/结尾
+     * @return 内容来源
+     * @throws MojoFailureException 生成脚本失败
+     */
+    private ZipSources streamingSources(String prefix) throws MojoFailureException {
+        ZipSources sources = ZipSources.create()
+                .addDir(warSourceDirectory, prefix)
+                .addDir(classesDirectory(), prefix + "WEB-INF/classes/");
+        for (Map.Entry<String, Artifact> jar : runtimeJars().entrySet()) {
+            sources.addFile(jar.getValue().getFile(), prefix + "WEB-INF/lib/" + jar.getKey());
+        }
+        for (Map.Entry<String, byte[]> script : renderedScripts().entrySet()) {
+            sources.addBytes(script.getValue(), prefix + "bin/" + script.getKey() + ".sh", scriptsTime);
+        }
+        String classpathFile = classpathFileName();
+        if (null != classpathFile) {
+            if (null == renderedClasspathFile) {
+                renderedClasspathFile = renderClasspathFile(new ArrayList<>(runtimeJars().keySet()));
+            }
+            sources.addBytes(renderedClasspathFile, prefix + "bin/" + classpathFile, scriptsTime);
+        }
+        return sources;
+    }
+
+    /**
+     * 生成启停脚本的内容，只生成一次
+     *
+     * @return 脚本名称 -> 脚本内容
+     * @throws MojoFailureException 生成脚本失败
+     */
+    private Map<String, byte[]> renderedScripts() throws MojoFailureException {
+        if (renderedScripts != null) {
+            return renderedScripts;
+        }
+        Map<String, byte[]> scripts = new LinkedHashMap<>();
+        for (String s : SCRIPTS) {
+            logger.info("auto generate {} sh", s);
+            try {
+                scripts.put(s, renderScript(s).getBytes(Charset.defaultCharset()));
+            } catch (IOException e) {
+                throw new MojoFailureException("生成" + s + ".sh失败", e);
+            }
+        }
+        scriptsTime = System.currentTimeMillis();
+        renderedScripts = scripts;
+        return scripts;
+    }
+
+    /**
+     * 以多线程gzip压缩输出tar.gz，sh脚本保留可执行权限
+     *
+     * @param sources 内容来源
+     * @throws MojoFailureException 归档失败
+     */
+    private void tarGz(ZipSources sources) throws MojoFailureException {
+        File targetFile = new File(this.outputDirectory, serverName + ".tar.gz");
+        logger.info("压缩目标文件{},压缩线程数{}", targetFile, zipThreads > 0 ? zipThreads : Runtime.getRuntime().availableProcessors());
+        try (BuildReport.Phase phase = buildReport.phase("zip:" + FORMAT_TAR_GZ)) {
+            TarUtils.archiveGz(sources, targetFile, parseOutputTimestamp(), zipThreads, compressionLevel, buildReport);
+            phase.addOutput(targetFile);
+        } catch (Exception e) {
+            throw new MojoFailureException("生成" + targetFile + "失败", e);
+        }
+    }
+
+    /**
+     * 是否输出指定格式
+     *
+     * @param format 格式
+     * @return 是否输出
+     */
+    private boolean hasFormat(String format) {
+        for (String f : StringUtils.split(formats, ", ")) {
+            if (format.equalsIgnoreCase(f) || (FORMAT_TAR_GZ.equals(format) && "tgz".equalsIgnoreCase(f))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 运行时依赖的jar包，文件名重复时以groupId为前缀区分
+     *
+     * @return WEB-INF/lib下的文件名 -> 依赖
+     */
+    private Map<String, Artifact> runtimeJars() {
+        if (runtimeJars != null) {
+            return runtimeJars;
+        }
+        Map<String, Artifact> jars = new LinkedHashMap<>();
+        ScopeArtifactFilter filter = new ScopeArtifactFilter(Artifact.SCOPE_RUNTIME);
+        for (Artifact artifact : project.getArtifacts()) {
+            File file = artifact.getFile();
+            if (!filter.include(artifact) || !artifact.getArtifactHandler().isAddedToClasspath() || file == null) {
+                continue;
+            }
+            if (!file.isFile()) {
+                logger.warn("依赖{}尚未打包，跳过:{}", artifact, file);
+                continue;
+            }
+            String jarName = file.getName();
+            if (jars.containsKey(jarName)) {
+                jarName = artifact.getGroupId() + "-" + jarName;
+            }
+            jars.put(jarName, artifact);
+        }
+        runtimeJars = jars;
+        return jars;
+    }
+
+    /**
+     * 分层输出：正式版依赖、快照依赖、应用及脚本分别写出压缩包，只有内容变化的层会被重写
+     *
+     * @param sources war包的内容来源
+     */
+    private void zipLayers(ZipSources sources) {
+        final Map<String, Artifact> jars = runtimeJars();
+        ZipConfig config = zipConfig();
+        try (BuildReport.Phase phase = buildReport.phase("zip:layers")) {
+            List<ZipLayers.Layer> result = ZipLayers.zip(layersDirectory, LAYERS, sources, path -> {
+                if (path.startsWith("bin/")) {
+                    return LAYER_SCRIPTS;
+                }
+                if (path.startsWith("WEB-INF/lib/")) {
+                    String jarName = path.substring("WEB-INF/lib/".length());
+                    Artifact artifact = jars.get(jarName);
+                    boolean snapshot = artifact != null ? artifact.isSnapshot() : jarName.contains(Artifact.SNAPSHOT_VERSION);
+                    return snapshot ? LAYER_SNAPSHOT_DEPENDENCIES : LAYER_DEPENDENCIES;
+                }
+                return LAYER_APPLICATION;
+            }, config);
+            for (ZipLayers.Layer layer : result) {
+                if (layer.isChanged()) {
+                    phase.addOutput(layer.getFile());
+                }
+                logger.info("分层 {} {} {}", layer.getName(), layer.getDigest(), layer.isChanged() ? "已更新" : "未变化");
+            }
+        }
+        logger.info("分层输出目录：{}", layersDirectory);
+    }
+
+    private ZipConfig zipConfig() {
+        CompressionPolicy policy = CollectionUtils.isEmpty(compressionRules)
+                ? CompressionPolicy.defaults(compressionLevel)
+                : new CompressionPolicy(compressionRules, compressionLevel);
+        return ZipConfig.create()
+                .setCompressionPolicy(policy)
+                .setThreads(zipThreads)
+                .setMemoryBudget(zipMemoryBudget * 1024L * 1024L)
+                .setReproducibleTime(parseOutputTimestamp())
+                .setIncremental(incremental)
+                .setHashContent(incrementalHash)
+                .setReport(buildReport)
+                .setDeflateCache(compressionCache);
+    }
+
+    private void logCompressionReport(ZipConfig config) {
+        for (String line : config.getCompressionPolicy().report()) {
+            logger.info("压缩统计 {}", line);
+        }
+    }
+
+    /**
+     * 解析可重现打包的时间戳，与maven约定一致，未配置或仅为单个字符时不开启可重现打包
+     *
+     * @return 时间戳，单位毫秒
+     */
+    private Long parseOutputTimestamp() {
+        if (StringUtils.isBlank(outputTimestamp) || outputTimestamp.trim().length() < 2) {
+            return null;
+        }
+        String value = outputTimestamp.trim();
+        long time;
+        if (StringUtils.isNumeric(value)) {
+            time = Long.parseLong(value) * 1000;
+        } else {
+            try {
+                time = OffsetDateTime.parse(value).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无法解析project.build.outputTimestamp:" + value, e);
+            }
+        }
+        if (time < MIN_ZIP_TIME) {
+            throw new IllegalArgumentException("project.build.outputTimestamp不能早于1980-01-01T00:00:02Z:" + value);
+        }
+        return time;
     }
 
     /**
      * 创建脚本
      */
     public void createStarterBin() {
-        for (String s : Arrays.asList("start", "stop", "restart")) {
+        for (String s : SCRIPTS) {
             logger.info("auto generate {} sh", s);
             copyFile(s);
         }
+        String classpathFile = classpathFileName();
+        if (null != classpathFile) {
+            File libDir = new File(new File(outputDirectory, serverName), "WEB-INF/lib");
+            try {
+                File targetFile = genFileByName(classpathFile);
+                FileUtils.writeByteArrayToFile(targetFile, renderClasspathFile(explodedJars(libDir)));
+                logger.info("生成启动classpath文件：{}", targetFile);
+            } catch (IOException e) {
+                throw new IllegalStateException("生成" + classpathFile + "失败", e);
+            }
+        }
+        if (isAppCdsEnabled()) {
+            File deployDir = new File(outputDirectory, serverName);
+            File classesJar = ZipUtil.zip(new File(deployDir, "bin/" + CDS_CLASSES_JAR),
+                    new File(deployDir, "WEB-INF/classes"), zipConfig().setIncremental(false));
+            logger.info("生成AppCDS使用的应用类jar：{}", classesJar);
+        }
+    }
+
+    /**
+     * 以展开目录做一次训练运行，在bin目录生成AppCDS归档及记录JDK版本的文件，失败时只记录日志
+     */
+    private void createAppCds() {
+        File deployDir = new File(outputDirectory, serverName);
+        File binDir = new File(deployDir, "bin");
+        File archive = new File(binDir, CDS_ARCHIVE);
+        File versionFile = new File(binDir, CDS_ARCHIVE + ".jdk");
+        File mtimesFile = new File(binDir, CDS_ARCHIVE + ".mtimes");
+        archive.delete();
+        versionFile.delete();
+        mtimesFile.delete();
+        if (false == isAppCdsEnabled() || StringUtils.isBlank(mainClass)) {
+            logger.warn("classpathMode为runtime时classpath顺序随主机而定，或未确定启动类，无法生成AppCDS归档，已跳过");
+            return;
+        }
+        List<File> classpathFiles = normalizeJarTimes(deployDir);
+        File classpath = new File(binDir, classpathFileName());
+        List<String> classpathArgs = CLASSPATH_ARGFILE.equalsIgnoreCase(classpathMode)
+                ? Collections.singletonList("@" + classpath.getAbsolutePath())
+                : Arrays.asList("-classpath", classpath.getAbsolutePath());
+        File logFile = new File(outputDirectory, serverName + "-cds-training.log");
+        AppCds cds = new AppCds(cdsJava, deployDir, logFile);
+        try {
+            String version = cds.javaVersion();
+            List<String> jvmArgs = null == cdsTrainingArgs ? Collections.emptyList() : cdsTrainingArgs;
+            if (cds.dump(AppCds.majorVersion(version), classpathArgs, mainClass, jvmArgs, archive, cdsTrainingSeconds)) {
+                FileUtils.writeStringToFile(versionFile, version, Charset.defaultCharset().name());
+                writeJarTimes(mtimesFile, deployDir, classpathFiles);
+                logger.info("生成AppCDS归档：{}，{}KB，训练输出见{}", archive, archive.length() / 1024, logFile);
+            }
+        } catch (IOException e) {
+            logger.warn("生成AppCDS归档失败，已跳过", e);
+        }
+    }
+
+    /**
+     * JVM加载归档时校验jar的大小及修改时间（精确到秒），而zip条目的时间只精确到2秒。
+     * 训练前将依赖jar、应用类jar及classpath文件的修改时间调整为打包后解压所得的时间：可重现打包时为固定时间戳，否则向下取整到偶数秒
+     *
+     * @return 调整过修改时间的文件
+     */
+    private List<File> normalizeJarTimes(File deployDir) {
+        Long reproducibleTime = parseOutputTimestamp();
+        List<File> files = new ArrayList<>();
+        File[] jars = new File(deployDir, "WEB-INF/lib").listFiles((dir, name) -> name.endsWith(".jar"));
+        if (null != jars) {
+            files.addAll(Arrays.asList(jars));
+        }
+        files.add(new File(deployDir, "bin/" + CDS_CLASSES_JAR));
+        files.add(new File(deployDir, "bin/" + classpathFileName()));
+        for (File file : files) {
+            long time = file.lastModified();
+            if (null != reproducibleTime) {
+                // war包中的DOS时间已抵消本地时区偏移，见ParallelZipCreator#setFixedTime；tar.gz中为原始时间戳
+                time = hasFormat(FORMAT_WAR)
+                        ? reproducibleTime - TimeZone.getDefault().getOffset(reproducibleTime) : reproducibleTime;
+            }
+            file.setLastModified(time / 2000 * 2000);
+        }
+        return files;
+    }
+
+    /**
+     * 记录训练时classpath中各文件的修改时间，每行为 UTC秒数 UTC时间（touch -t格式） 相对部署目录的路径。
+     * war包中的DOS时间按解压主机的时区换算，部署主机与打包主机时区不同时解压所得的时间不同，启动脚本据此还原修改时间；
+     * 预先给出touch -t格式的时间，脚本中以TZ=UTC touch -t还原，不依赖GNU touch -d @秒数及date的时间换算
+     */
+    private void writeJarTimes(File mtimesFile, File deployDir, List<File> files) throws IOException {
+        Path root = deployDir.toPath();
+        SimpleDateFormat touchFormat = new SimpleDateFormat("yyyyMMddHHmm.ss");
+        touchFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder content = new StringBuilder("#bin-cds-mtimes\t2\n");
+        for (File file : files) {
+            long seconds = file.lastModified() / 1000;
+            content.append(seconds).append(' ').append(touchFormat.format(new Date(seconds * 1000))).append(' ')
+                    .append(root.relativize(file.toPath()).toString().replace(File.separatorChar, '/')).append('\n');
+        }
+        FileUtils.writeStringToFile(mtimesFile, content.toString(), StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * 是否生成AppCDS归档，流式打包及runtime模式下不生成
+     */
+    private boolean isAppCdsEnabled() {
+        return appCds && false == streaming && null != classpathFileName();
+    }
+
+    /**
+     * 启动classpath文件名，runtime模式不生成文件
+     *
+     * @return bin目录下的文件名，runtime模式为null
+     */
+    private String classpathFileName() {
+        if (CLASSPATH_JAR.equalsIgnoreCase(classpathMode)) {
+            return "classpath.jar";
+        }
+        if (CLASSPATH_ARGFILE.equalsIgnoreCase(classpathMode)) {
+            return "classpath.args";
+        }
+        if (CLASSPATH_RUNTIME.equalsIgnoreCase(classpathMode)) {
+            return null;
+        }
+        throw new IllegalArgumentException("不支持的classpathMode:" + classpathMode + "，可选值为jar、argfile、runtime");
+    }
+
+    /**
+     * 生成启动classpath文件，WEB-INF/classes在前（开启AppCDS时为bin/app-classes.jar），其后为按顺序排列的jar
+     *
+     * @param jars WEB-INF/lib下的jar文件名
+     * @return 文件内容
+     */
+    private byte[] renderClasspathFile(List<String> jars) {
+        List<String> paths = new ArrayList<>();
+        if (CLASSPATH_ARGFILE.equalsIgnoreCase(classpathMode)) {
+            // 参数文件中的路径以启动时的工作目录（部署目录）为基准
+            paths.add(isAppCdsEnabled() ? "bin/" + CDS_CLASSES_JAR : "WEB-INF/classes");
+            for (String jar : jars) {
+                paths.add("WEB-INF/lib/" + jar);
+            }
+            return ClasspathFiles.argFile(paths, ":");
+        }
+        // pathing jar位于bin目录，WEB-INF/classes由启动脚本放在它之前；JVM不归档目录中的类，开启AppCDS时以应用类jar代替
+        if (isAppCdsEnabled()) {
+            paths.add(CDS_CLASSES_JAR);
+        }
+        for (String jar : jars) {
+            paths.add("../WEB-INF/lib/" + jar);
+        }
+        Long reproducibleTime = parseOutputTimestamp();
+        long time = null == reproducibleTime ? PATHING_JAR_TIME : reproducibleTime;
+        // DOS时间按本地时区换算，预先抵消时区偏移，使不同时区的机器写出相同的字节
+        return ClasspathFiles.pathingJar(paths, time - TimeZone.getDefault().getOffset(time));
+    }
+
+    /**
+     * 展开目录WEB-INF/lib下的jar，按依赖顺序排列，不属于运行时依赖的jar按文件名排在最后
+     *
+     * @param libDir WEB-INF/lib目录
+     * @return jar文件名
+     */
+    private List<String> explodedJars(File libDir) {
+        String[] files = libDir.list((dir, name) -> name.endsWith(".jar"));
+        List<String> jars = new ArrayList<>();
+        if (null == files) {
+            return jars;
+        }
+        Set<String> remaining = new TreeSet<>(Arrays.asList(files));
+        for (Map.Entry<String, Artifact> jar : runtimeJars().entrySet()) {
+            Artifact artifact = jar.getValue();
+            // war插件默认以artifactId-baseVersion[-classifier].extension命名
+            String warName = artifact.getArtifactId() + "-" + artifact.getBaseVersion()
+                    + (artifact.hasClassifier() ? "-" + artifact.getClassifier() : "")
+                    + "." + artifact.getArtifactHandler().getExtension();
+            for (String name : Arrays.asList(warName, jar.getKey(), artifact.getFile().getName())) {
+                if (remaining.remove(name)) {
+                    jars.add(name);
+                    break;
+                }
+            }
+        }
+        jars.addAll(remaining);
+        return jars;
     }
 
     /**
@@ -133,16 +1277,26 @@ public class BinCreateMojo extends AbstractMojo {
      */
     private void copyFile(String fileName) {
         try {
-            String content = TextUtil.readFileAsStream(fileName + ".txt");
-            content = doFilter(content);
+            String content = renderScript(fileName);
             File targetFile = genFileByName(fileName + ".sh");
-            targetFile.setExecutable(true);
             FileUtils.writeStringToFile(targetFile, content);
+            targetFile.setExecutable(true);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * 读取脚本模板并替换占位符
+     *
+     * @param fileName 脚本名称
+     * @return 脚本内容
+     * @throws IOException
+     */
+    private String renderScript(String fileName) throws IOException {
+        return doFilter(TextUtil.readFileAsStream(fileName + ".txt"));
+    }
+
     /**
      * 对脚本内容进行过滤，替换站占位符成真实参数
      *
@@ -157,6 +1311,12 @@ public class BinCreateMojo extends AbstractMojo {
         if (content.contains("{serverName}")) {
             content = content.replace("{serverName}", serverName);
         }
+        if (content.contains("{cds}")) {
+            content = content.replace("{cds}", formatCdsString());
+        }
+        if (content.contains("{classpath}")) {
+            content = content.replace("{classpath}", formatClasspathString());
+        }
         if (content.contains("{jvms}")) {
             String jvmString = formatJvmString();
             content = content.replace("{jvms}", jvmString);
@@ -164,6 +1324,73 @@ public class BinCreateMojo extends AbstractMojo {
         return content;
     }
 
+    /**
+     * 启动脚本中设置CLASSPATH_OPTS的语句
+     *
+     * @return 脚本片段
+     */
+    private String formatClasspathString() {
+        String classpathFile = classpathFileName();
+        if (null == classpathFile) {
+            return "LIB_DIR=$DEPLOY_DIR/WEB-INF/lib\n"
+                    + "LIB_JARS=`ls $LIB_DIR|grep .jar|awk '{print \"'$LIB_DIR'/\"$0}'|tr \"\\n\" \":\"`\n"
+                    + "CLASSPATH_OPTS=\"-classpath $CLASSES:$LIB_JARS\"";
+        }
+        if (CLASSPATH_ARGFILE.equalsIgnoreCase(classpathMode)) {
+            return "CLASSPATH_OPTS=\"@$BIN_DIR/" + classpathFile + "\"";
+        }
+        if (isAppCdsEnabled()) {
+            return "CLASSPATH_OPTS=\"-classpath $BIN_DIR/" + classpathFile + "\"";
+        }
+        return "CLASSPATH_OPTS=\"-classpath $CLASSES:$BIN_DIR/" + classpathFile + "\"";
+    }
+
+    /**
+     * 启动脚本中设置CDS_OPTS的语句：归档存在且java -version与生成归档时一致时加载，
+     * -Xshare:auto下归档校验失败也会正常启动。<br>
+     * 修改时间依次以stat -c %Y（GNU、busybox）、stat -f %m（macOS、BSD）、date -r读取，以POSIX的TZ=UTC touch -c -t还原，
+     * 无法读取或还原时输出对应的命令
+     *
+     * @return 脚本片段
+     */
+    private String formatCdsString() {
+        if (false == isAppCdsEnabled()) {
+            return "CDS_OPTS=\"\"";
+        }
+        String archive = "$BIN_DIR/" + CDS_ARCHIVE;
+        // 修改时间与训练时不一致时JVM静默放弃归档，启动前按记录还原，无法还原时给出提示
+        return "CDS_OPTS=\"\"\n"
+                + "cds_mtime() {\n"
+                + "    stat -c %Y \"$1\" 2>/dev/null || stat -f %m \"$1\" 2>/dev/null || date -r \"$1\" +%s 2>/dev/null\n"
+                + "}\n"
+                + "if [ -f \"" + archive + "\" ] && [ \"$JAVA_VERSION_INFO\" = \"`cat " + archive + ".jdk 2>/dev/null`\" ]; then\n"
+                + "    CDS_MTIMES_OK=true\n"
+                + "    if [ -f \"" + archive + ".mtimes\" ]; then\n"
+                + "        while read -r CDS_TIME CDS_STAMP CDS_FILE; do\n"
+                + "            case \"$CDS_TIME\" in ''|\\#*) continue ;; esac\n"
+                + "            CDS_PATH=\"$DEPLOY_DIR/$CDS_FILE\"\n"
+                + "            if [ \"`cds_mtime \"$CDS_PATH\"`\" != \"$CDS_TIME\" ]; then\n"
+                + "                if [ ! -f \"$CDS_PATH\" ]; then\n"
+                + "                    echo \"WARN: $CDS_PATH不存在\"\n"
+                + "                    CDS_MTIMES_OK=false\n"
+                + "                elif ! TZ=UTC touch -c -t \"$CDS_STAMP\" \"$CDS_PATH\"; then\n"
+                + "                    echo \"WARN: 还原修改时间失败：TZ=UTC touch -c -t $CDS_STAMP $CDS_PATH\"\n"
+                + "                    CDS_MTIMES_OK=false\n"
+                + "                elif [ \"`cds_mtime \"$CDS_PATH\"`\" != \"$CDS_TIME\" ]; then\n"
+                + "                    echo \"WARN: 无法读取$CDS_PATH的修改时间，stat -c %Y、stat -f %m及date -r均不可用或结果不一致\"\n"
+                + "                    CDS_MTIMES_OK=false\n"
+                + "                fi\n"
+                + "            fi\n"
+                + "        done < \"" + archive + ".mtimes\"\n"
+                + "    fi\n"
+                + "    if [ \"$CDS_MTIMES_OK\" = \"true\" ]; then\n"
+                + "        CDS_OPTS=\"-XX:SharedArchiveFile=" + archive + " -Xshare:auto\"\n"
+                + "    else\n"
+                + "        echo \"WARN: classpath中jar的修改时间与生成AppCDS归档时不一致且无法还原，不使用AppCDS归档\"\n"
+                + "    fi\n"
+                + "fi";
+    }
+
     /**
      * 将用户配置的jvm参数格式化成字符串
      *
@@ -173,8 +1400,8 @@ public class BinCreateMojo extends AbstractMojo {
     private String formatJvmString() throws IOException {
         StringBuffer jvmString = new StringBuffer();
         if (CollectionUtils.isEmpty(jvms)) {
-            //用户无jvm参数配置时使用默认参数
-            jvmString.append(TextUtil.readFileAsStream("jvms.txt"));
+            //用户无jvm参数配置时使用参数模板
+            jvmString.append(null == jvmProfileScript ? renderJvmProfile() : jvmProfileScript);
         } else {
             jvmString.append("JAVA_MEM_OPTS=\" ");
             for (String jvm : jvms) {
@@ -184,5 +1411,120 @@ public class BinCreateMojo extends AbstractMojo {
         }
         return jvmString.toString();
     }
+
+    /**
+     * 按目标JDK校验并生成JVM参数模板
+     *
+     * @return 脚本片段
+     */
+    private String renderJvmProfile() {
+        JvmProfile profile = JvmProfile.of(jvmProfile);
+        if (StringUtils.isNotBlank(jvmHeap)) {
+            profile.setHeap(jvmHeap.trim());
+        }
+        int jdk = resolveTargetJdk();
+        logger.info("使用JVM参数模板{}，目标JDK {}", profile.getName(), jdk);
+        if (classFootprintSizing) {
+            ClassFootprint footprint = classFootprint();
+            long metaspaceMb = footprint.metaspaceMb(metaspaceHeadroom);
+            long maxMetaspaceMb = parseMb(profile.getMaxMetaspaceSize());
+            if (maxMetaspaceMb > 0 && metaspaceMb > maxMetaspaceMb && metaspacePercent <= 0) {
+                logger.warn("按类统计估算的元空间{}m超过模板{}的上限{}，请调大metaspacePercent或更换模板",
+                        metaspaceMb, profile.getName(), profile.getMaxMetaspaceSize());
+            }
+            profile.setMetaspace(metaspaceMb + "m", profile.getMaxMetaspaceSize());
+            profile.setCodeCache(footprint.reservedCodeCacheMb(codeCacheHeadroom) + "m",
+                    footprint.initialCodeCacheMb(codeCacheHeadroom) + "m");
+        }
+        if (false == containerSizing) {
+            return profile.render(jdk);
+        }
+        ContainerSizing sizing = ContainerSizing.create()
+                .setHeapPercent(StringUtils.isNotBlank(jvmHeap) ? 0 : heapPercent)
+                .setDirectMemoryPercent(directMemoryPercent)
+                .setMetaspacePercent(metaspacePercent)
+                .setGcThreadsPercent(gcThreadsPercent);
+        if (sizing.isMetaspaceSized()) {
+            // 元空间上限在启动时计算，不再重复设置固定值
+            profile.setMetaspace(profile.getMetaspaceSize(), null);
+        }
+        return profile.render(jdk, sizing.render());
+    }
+
+    /**
+     * 解析以m、g为单位的JVM内存参数
+     *
+     * @param size 如512m
+     * @return 大小，单位MB，为空或无法解析时为0
+     */
+    private static long parseMb(String size) {
+        if (StringUtils.isBlank(size)) {
+            return 0;
+        }
+        String value = size.trim().toLowerCase();
+        char unit = value.charAt(value.length() - 1);
+        String number = value.substring(0, value.length() - 1);
+        if (false == StringUtils.isNumeric(number) || number.isEmpty()) {
+            return 0;
+        }
+        return unit == 'g' ? Long.parseLong(number) * 1024 : unit == 'm' ? Long.parseLong(number) : 0;
+    }
+
+    /**
+     * 统计WEB-INF/classes及依赖jar中的类，WEB-INF/classes优先使用查找启动类时加载的class索引
+     *
+     * @return 统计结果
+     */
+    private ClassFootprint classFootprint() {
+        ClassFootprint footprint = new ClassFootprint();
+        if (null != loadedClassIndex) {
+            footprint.addClasses(loadedClassIndex.getClasses());
+        } else {
+            footprint.addDir(classesDirectory());
+        }
+        long appClasses = footprint.getClassCount();
+        List<File> jars = new ArrayList<>();
+        if (streaming) {
+            for (Artifact artifact : runtimeJars().values()) {
+                jars.add(artifact.getFile());
+            }
+        } else {
+            File[] files = new File(new File(outputDirectory, serverName), "WEB-INF/lib")
+                    .listFiles((dir, name) -> name.endsWith(".jar"));
+            if (null != files) {
+                jars.addAll(Arrays.asList(files));
+            }
+        }
+        footprint.addJars(jars);
+        logger.info("类统计：应用{}个类，依赖jar{}个共{}个类，字节码{}MB，MetaspaceSize {}m，代码缓存{}m/{}m",
+                appClasses, jars.size(), footprint.getClassCount() - appClasses,
+                footprint.getBytecodeSize() / 1024 / 1024,
+                footprint.metaspaceMb(metaspaceHeadroom),
+                footprint.initialCodeCacheMb(codeCacheHeadroom), footprint.reservedCodeCacheMb(codeCacheHeadroom));
+        return footprint;
+    }
+
+    /**
+     * 运行环境的JDK主版本号
+     *
+     * @return 主版本号
+     */
+    private int resolveTargetJdk() {
+        String version = targetJdk;
+        if (StringUtils.isBlank(version) && null != project) {
+            version = project.getProperties().getProperty("maven.compiler.release");
+            if (StringUtils.isBlank(version)) {
+                version = project.getProperties().getProperty("maven.compiler.target");
+            }
+        }
+        if (StringUtils.isBlank(version)) {
+            version = System.getProperty("java.specification.version");
+        }
+        int jdk = JvmProfile.parseJdk(version);
+        if (jdk <= 0) {
+            throw new IllegalArgumentException("无法解析目标JDK版本:" + version);
+        }
+        return jdk;
+    }
 }
 
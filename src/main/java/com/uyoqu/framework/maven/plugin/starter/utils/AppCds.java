@@ -0,0 +1,184 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AppCDS（应用类数据共享）归档生成<br>
+ * 以打包好的应用做一次本地训练运行，记录启动过程中加载的类并生成CDS归档，运行时以-XX:SharedArchiveFile加载，减少类加载及校验耗时：
+ * <ul>
+ *     <li>JDK 13及以上：-XX:ArchiveClassesAtExit，训练进程退出时直接写出动态归档</li>
+ *     <li>JDK 10~12：训练时-XX:DumpLoadedClassList记录类列表，再以-Xshare:dump生成静态归档</li>
+ *     <li>JDK 9及以下：OpenJDK不支持应用类归档，跳过</li>
+ * </ul>
+ * 训练进程在应用自行退出或超时后结束，超时时先正常终止（执行关闭钩子并写出归档），仍未退出再强制终止。<br>
+ * JVM校验归档时要求JDK版本、classpath中jar的路径、大小及修改时间与训练时一致，不一致时在-Xshare:auto下自动放弃共享，不影响启动。
+ */
+public class AppCds {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppCds.class);
+
+    /**
+     * 正常终止后等待进程退出的时间，单位秒
+     */
+    private static final long STOP_TIMEOUT_SECONDS = 60;
+
+    private static final Pattern VERSION = Pattern.compile("version \"(\\d+)(?:\\.(\\d+))?");
+
+    private final String java;
+
+    private final File workDir;
+
+    private final File logFile;
+
+    /**
+     * 构造
+     *
+     * @param java    java命令，应与运行环境的JDK一致
+     * @param workDir 训练进程的工作目录
+     * @param logFile 训练进程的输出文件
+     */
+    public AppCds(String java, File workDir, File logFile) {
+        this.java = java;
+        this.workDir = workDir;
+        this.logFile = logFile;
+    }
+
+    /**
+     * 执行java -version
+     *
+     * @return 版本信息，即java -version的输出，去掉末尾的换行
+     * @throws IOException 执行失败
+     */
+    public String javaVersion() throws IOException {
+        final Process process = new ProcessBuilder(java, "-version").redirectErrorStream(true).start();
+        final String output = new String(IoUtil.readBytes(process.getInputStream()), Charset.defaultCharset());
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("执行" + java + " -version失败：" + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return output.replaceAll("[\\r\\n]+$", "");
+    }
+
+    /**
+     * 从java -version的输出中解析主版本号，1.8解析为8
+     *
+     * @param version java -version的输出
+     * @return 主版本号，无法解析时为0
+     */
+    public static int majorVersion(String version) {
+        final Matcher matcher = VERSION.matcher(version);
+        if (false == matcher.find()) {
+            return 0;
+        }
+        final int major = Integer.parseInt(matcher.group(1));
+        return major == 1 && null != matcher.group(2) ? Integer.parseInt(matcher.group(2)) : major;
+    }
+
+    /**
+     * 训练并生成归档
+     *
+     * @param major          JDK主版本号
+     * @param classpathArgs  classpath参数，与启动脚本一致
+     * @param mainClass      启动类
+     * @param jvmArgs        训练时额外的JVM参数，如-Dspring.context.exit=onRefresh
+     * @param archive        归档文件
+     * @param timeoutSeconds 训练运行的最长时间，单位秒
+     * @return 是否生成了归档
+     * @throws IOException 启动进程失败
+     */
+    public boolean dump(int major, List<String> classpathArgs, String mainClass, List<String> jvmArgs,
+                        File archive, long timeoutSeconds) throws IOException {
+        if (major < 10) {
+            logger.warn("JDK {}不支持应用类归档，跳过AppCDS", major);
+            return false;
+        }
+        archive.delete();
+        final List<String> training = new ArrayList<>();
+        final File classList = new File(archive.getPath() + ".classlist");
+        if (major >= 13) {
+            training.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+        } else {
+            if (major == 10) {
+                training.add("-XX:+UseAppCDS");
+            }
+            training.add("-Xshare:off");
+            training.add("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+        }
+        training.addAll(jvmArgs);
+        run(command(training, classpathArgs, mainClass), timeoutSeconds);
+        if (major < 13) {
+            if (false == classList.isFile()) {
+                logger.warn("训练运行未生成类列表，见{}", logFile);
+                return false;
+            }
+            final List<String> dump = new ArrayList<>();
+            if (major == 10) {
+                dump.add("-XX:+UseAppCDS");
+            }
+            dump.add("-Xshare:dump");
+            dump.add("-XX:SharedClassListFile=" + classList.getAbsolutePath());
+            dump.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            try {
+                run(command(dump, classpathArgs, null), timeoutSeconds);
+            } finally {
+                classList.delete();
+            }
+        }
+        if (false == archive.isFile()) {
+            logger.warn("未生成AppCDS归档，见{}", logFile);
+            return false;
+        }
+        return true;
+    }
+
+    private List<String> command(List<String> options, List<String> classpathArgs, String mainClass) {
+        final List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(options);
+        command.addAll(classpathArgs);
+        if (null != mainClass) {
+            command.add(mainClass);
+        }
+        return command;
+    }
+
+    /**
+     * 运行进程，超时后先正常终止，仍未退出再强制终止
+     */
+    private void run(List<String> command, long timeoutSeconds) throws IOException {
+        logger.info("AppCDS训练：{}", String.join(" ", command));
+        FileUtil.mkParentDirs(logFile);
+        final Process process = new ProcessBuilder(command)
+                .directory(workDir)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                .start();
+        try {
+            if (false == process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.info("训练运行已达{}秒，终止进程", timeoutSeconds);
+                process.destroy();
+                if (false == process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 构建输入指纹<br>
+ * 按分组记录构建的全部输入：配置项、单个文件及目录树（相对路径、大小、修改时间），每组计算一个SHA-256摘要，
+ * 只读取文件属性，不读取文件内容。与上一次构建保存的指纹完全一致时可以跳过整个构建；
+ * 不一致时{@link #diff(BuildFingerprint)}给出变化的分组，便于排查。
+ * <pre>
+ * 文件格式（UTF-8，每行以TAB分隔）：
+ * #bin-fingerprint	版本
+ * 分组	摘要
+ * </pre>
+ */
+public class BuildFingerprint {
+
+    private static final String HEADER = "#bin-fingerprint";
+
+    private static final String VERSION = "1";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String MISSING = "-";
+
+    /**
+     * 分组 -> 该组输入的行，计算摘要前排序
+     */
+    private final Map<String, List<String>> groups = new LinkedHashMap<>();
+
+    /**
+     * 从文件加载的分组摘要
+     */
+    private final Map<String, String> digests = new LinkedHashMap<>();
+
+    /**
+     * 添加配置项
+     *
+     * @param group 分组
+     * @param name  配置名
+     * @param value 配置值，可以为null
+     * @return this
+     */
+    public BuildFingerprint add(String group, String name, Object value) {
+        return line(group, name + "=" + value);
+    }
+
+    /**
+     * 添加文件，记录路径、大小及修改时间，文件不存在时同样记录
+     *
+     * @param group 分组
+     * @param file  文件，可以为null
+     * @return this
+     */
+    public BuildFingerprint addFile(String group, File file) {
+        if (null == file) {
+            return line(group, MISSING);
+        }
+        return line(group, file.getAbsolutePath() + SEPARATOR + attributesOf(file));
+    }
+
+    /**
+     * 添加目录树，记录每个文件及目录的相对路径、大小及修改时间，目录不存在时同样记录
+     *
+     * @param group 分组
+     * @param dir   目录
+     * @return this
+     */
+    public BuildFingerprint addTree(String group, File dir) {
+        if (false == dir.isDirectory()) {
+            return line(group, dir.getAbsolutePath() + SEPARATOR + MISSING);
+        }
+        line(group, dir.getAbsolutePath());
+        final Path root = dir.toPath();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                    // 目录的修改时间随子项增删变化，子项已逐一记录，这里只记录路径，保留空目录
+                    line(group, root.relativize(path) + "/");
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    line(group, root.relativize(path) + SEPARATOR + attrs.size() + "," + attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    /**
+     * 各分组的摘要
+     *
+     * @return 分组 -> 十六进制摘要
+     */
+    public Map<String, String> digests() {
+        final Map<String, String> result = new LinkedHashMap<>(digests);
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            final List<String> lines = new ArrayList<>(group.getValue());
+            Collections.sort(lines);
+            result.put(group.getKey(), ZipFingerprints.sha256Hex(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)));
+        }
+        return result;
+    }
+
+    /**
+     * 与另一指纹不同的分组
+     *
+     * @param other 另一指纹
+     * @return 变化的分组，完全一致时为空
+     */
+    public List<String> diff(BuildFingerprint other) {
+        final Map<String, String> mine = digests();
+        final Map<String, String> theirs = other.digests();
+        final List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, String> entry : mine.entrySet()) {
+            if (false == entry.getValue().equals(theirs.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String group : theirs.keySet()) {
+            if (false == mine.containsKey(group)) {
+                changed.add(group);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 加载指纹文件，文件不存在、版本不一致或损坏时返回空指纹
+     *
+     * @param file 指纹文件
+     * @return 指纹
+     */
+    public static BuildFingerprint load(File file) {
+        final BuildFingerprint fingerprint = new BuildFingerprint();
+        if (false == file.isFile()) {
+            return fingerprint;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(FileUtil.getInputStream(file), StandardCharsets.UTF_8))) {
+            if (false == (HEADER + SEPARATOR + VERSION).equals(reader.readLine())) {
+                return fingerprint;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] columns = line.split(SEPARATOR, -1);
+                if (columns.length != 2) {
+                    throw new IOException("指纹行格式错误:" + line);
+                }
+                fingerprint.digests.put(columns[0], columns[1]);
+            }
+        } catch (IOException | RuntimeException e) {
+            fingerprint.digests.clear();
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 保存指纹，先写入临时文件再替换
+     *
+     * @param file 指纹文件
+     */
+    public void save(File file) {
+        try {
+            FileUtil.mkParentDirs(file);
+            final File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try (BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(FileUtil.getOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                writer.write(HEADER + SEPARATOR + VERSION);
+                writer.newLine();
+                for (Map.Entry<String, String> entry : digests().entrySet()) {
+                    writer.write(entry.getKey() + SEPARATOR + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BuildFingerprint line(String group, String line) {
+        groups.computeIfAbsent(group, k -> new ArrayList<>()).add(line);
+        return this;
+    }
+
+    private static String attributesOf(File file) {
+        if (false == file.exists()) {
+            return MISSING;
+        }
+        return file.length() + "," + file.lastModified();
+    }
+}
@@ -0,0 +1,425 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 构建报告<br>
+ * 记录各阶段耗时，以及阶段内读取的条目数、读取及写出的字节数、压缩率、吞吐量，并保留耗时最长的若干条目，
+ * 输出为JSON文件及控制台摘要。<br>
+ * 条目的读取通过{@link #entry(String)}返回的{@link IoUtil.StreamProgress}统计，可在压缩线程中并发使用，线程安全。
+ * <pre>
+ * BuildReport report = new BuildReport("demo");
+ * try (BuildReport.Phase phase = report.phase("zip:war")) {
+ *     ZipUtil.zip(warFile, srcDir, ZipConfig.create().setReport(report));
+ *     phase.addOutput(warFile);
+ * }
+ * report.write(new File("target/bin-report.json"));
+ * </pre>
+ */
+public class BuildReport {
+
+    /**
+     * 默认保留的最慢条目数
+     */
+    public static final int DEFAULT_SLOWEST = 10;
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final String project;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final int slowestLimit;
+
+    private final List<Phase> phases = new CopyOnWriteArrayList<>();
+
+    /**
+     * 耗时最长的条目，按耗时升序的小顶堆，堆顶为当前保留条目中最快的一个
+     */
+    private final PriorityQueue<Entry> slowest = new PriorityQueue<>(Comparator.comparingLong(e -> e.nanos));
+
+    private final LongAdder classFilesParsed = new LongAdder();
+
+    /**
+     * 当前阶段，各阶段依次执行，条目统计计入当前阶段
+     */
+    private volatile Phase current;
+
+    /**
+     * 构造
+     *
+     * @param project 工程名称
+     */
+    public BuildReport(String project) {
+        this(project, DEFAULT_SLOWEST);
+    }
+
+    /**
+     * 构造
+     *
+     * @param project      工程名称
+     * @param slowestLimit 保留的最慢条目数
+     */
+    public BuildReport(String project, int slowestLimit) {
+        this.project = project;
+        this.slowestLimit = Math.max(0, slowestLimit);
+    }
+
+    /**
+     * 开始一个阶段，关闭返回的阶段对象时结束计时
+     *
+     * @param name 阶段名称
+     * @return 阶段
+     */
+    public Phase phase(String name) {
+        final Phase phase = new Phase(name);
+        phases.add(phase);
+        current = phase;
+        return phase;
+    }
+
+    /**
+     * 记录解析的class文件数
+     *
+     * @param count 数量
+     */
+    public void addClassFilesParsed(long count) {
+        classFilesParsed.add(count);
+    }
+
+    /**
+     * 记录复用的条目（如增量打包时直接复制上一次压缩包中的原始数据），计入当前阶段的条目数，不计读取字节数
+     */
+    public void addReusedEntry() {
+        final Phase phase = current;
+        if (null != phase) {
+            phase.entries.increment();
+            phase.reusedEntries.increment();
+        }
+    }
+
+    /**
+     * 创建统计单个条目读取的进度回调，结束时将字节数及耗时计入当前阶段
+     *
+     * @param path 条目路径
+     * @return 进度回调
+     */
+    public IoUtil.StreamProgress entry(String path) {
+        return new EntryProgress(path, current);
+    }
+
+    /**
+     * @return 各阶段
+     */
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * 控制台摘要
+     *
+     * @return 摘要，每行一项
+     */
+    public List<String> summary() {
+        final List<String> lines = new ArrayList<>();
+        for (Phase phase : phases) {
+            lines.add(String.format("阶段 %s: 耗时%dms, %d个条目(复用%d个), 读取%.1fMB, 写出%.1fMB (%.1f%%), %.1fMB/s",
+                    phase.name, phase.millis(), phase.entries.sum(), phase.reusedEntries.sum(), phase.bytesRead.sum() / MB,
+                    phase.bytesWritten.sum() / MB, phase.ratio() * 100, phase.throughput()));
+        }
+        lines.add(String.format("合计: 耗时%dms, 解析class文件%d个, %d个条目, 读取%.1fMB, 写出%.1fMB",
+                totalMillis(), classFilesParsed.sum(), totalEntries(), totalBytesRead() / MB, totalBytesWritten() / MB));
+        for (Entry entry : slowestEntries()) {
+            lines.add(String.format("最慢条目 %s: %.1fKB, 耗时%dms (%s)",
+                    entry.path, entry.bytes / 1024.0, entry.nanos / 1000000, entry.phase));
+        }
+        return lines;
+    }
+
+    /**
+     * 转为JSON
+     *
+     * @return JSON字符串
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"project\": ").append(quote(project)).append(",\n");
+        json.append("  \"startTime\": ").append(quote(Instant.ofEpochMilli(startTime).toString())).append(",\n");
+        json.append("  \"totalMillis\": ").append(totalMillis()).append(",\n");
+        json.append("  \"classFilesParsed\": ").append(classFilesParsed.sum()).append(",\n");
+        json.append("  \"entries\": ").append(totalEntries()).append(",\n");
+        json.append("  \"bytesRead\": ").append(totalBytesRead()).append(",\n");
+        json.append("  \"bytesWritten\": ").append(totalBytesWritten()).append(",\n");
+        json.append("  \"phases\": [");
+        for (int i = 0; i < phases.size(); i++) {
+            final Phase phase = phases.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"name\": ").append(quote(phase.name))
+                    .append(", \"millis\": ").append(phase.millis())
+                    .append(", \"entries\": ").append(phase.entries.sum())
+                    .append(", \"reusedEntries\": ").append(phase.reusedEntries.sum())
+                    .append(", \"bytesRead\": ").append(phase.bytesRead.sum())
+                    .append(", \"bytesWritten\": ").append(phase.bytesWritten.sum())
+                    .append(", \"compressionRatio\": ").append(number(phase.ratio()))
+                    .append(", \"mbPerSecond\": ").append(number(phase.throughput()))
+                    .append('}');
+        }
+        json.append(phases.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"slowestEntries\": [");
+        final List<Entry> entries = slowestEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"path\": ").append(quote(entry.path))
+                    .append(", \"phase\": ").append(quote(entry.phase))
+                    .append(", \"bytes\": ").append(entry.bytes)
+                    .append(", \"millis\": ").append(number(entry.nanos / 1000000.0))
+                    .append('}');
+        }
+        json.append(entries.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * 以JSON格式写出报告
+     *
+     * @param file 报告文件
+     */
+    public void write(File file) {
+        FileUtil.mkParentDirs(file);
+        try {
+            Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return 耗时最长的条目，按耗时降序
+     */
+    public List<Entry> slowestEntries() {
+        final List<Entry> entries;
+        synchronized (slowest) {
+            entries = new ArrayList<>(slowest);
+        }
+        entries.sort(Comparator.comparingLong((Entry e) -> e.nanos).reversed());
+        return entries;
+    }
+
+    private void offer(Entry entry) {
+        if (slowestLimit == 0) {
+            return;
+        }
+        synchronized (slowest) {
+            if (slowest.size() < slowestLimit) {
+                slowest.add(entry);
+            } else if (slowest.peek().nanos < entry.nanos) {
+                slowest.poll();
+                slowest.add(entry);
+            }
+        }
+    }
+
+    private long totalMillis() {
+        long millis = 0;
+        for (Phase phase : phases) {
+            millis += phase.millis();
+        }
+        return millis;
+    }
+
+    private long totalEntries() {
+        long entries = 0;
+        for (Phase phase : phases) {
+            entries += phase.entries.sum();
+        }
+        return entries;
+    }
+
+    private long totalBytesRead() {
+        long bytes = 0;
+        for (Phase phase : phases) {
+            bytes += phase.bytesRead.sum();
+        }
+        return bytes;
+    }
+
+    private long totalBytesWritten() {
+        long bytes = 0;
+        for (Phase phase : phases) {
+            bytes += phase.bytesWritten.sum();
+        }
+        return bytes;
+    }
+
+    private static String quote(String value) {
+        if (null == value) {
+            return "null";
+        }
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * 构建阶段
+     */
+    public class Phase implements AutoCloseable {
+        private final String name;
+        private final long start = System.nanoTime();
+        private volatile long end;
+
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder reusedEntries = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 记录本阶段写出的文件，文件不存在时忽略
+         *
+         * @param file 输出文件
+         */
+        public void addOutput(File file) {
+            if (file.isFile()) {
+                bytesWritten.add(file.length());
+            }
+        }
+
+        /**
+         * @return 阶段名称
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 耗时，未结束时为至今的耗时，单位毫秒
+         */
+        public long millis() {
+            return ((end == 0 ? System.nanoTime() : end) - start) / 1000000;
+        }
+
+        /**
+         * @return 写出与读取的字节数之比，未读取时为0
+         */
+        public double ratio() {
+            final long read = bytesRead.sum();
+            return read == 0 ? 0 : (double) bytesWritten.sum() / read;
+        }
+
+        /**
+         * @return 按读取字节数计算的吞吐量，单位MB/s
+         */
+        public double throughput() {
+            final long millis = millis();
+            return millis == 0 ? 0 : bytesRead.sum() / MB / (millis / 1000.0);
+        }
+
+        /**
+         * 结束本阶段
+         */
+        @Override
+        public void close() {
+            if (end == 0) {
+                end = System.nanoTime();
+            }
+            if (current == this) {
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * 单个条目的读取记录
+     */
+    public static class Entry {
+        private final String path;
+        private final String phase;
+        private final long bytes;
+        private final long nanos;
+
+        Entry(String path, String phase, long bytes, long nanos) {
+            this.path = path;
+            this.phase = phase;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * 统计单个条目的进度回调
+     */
+    private class EntryProgress implements IoUtil.StreamProgress {
+        private final String path;
+        private final Phase phase;
+        private long start;
+        private long size;
+
+        EntryProgress(String path, Phase phase) {
+            this.path = path;
+            this.phase = phase;
+        }
+
+        @Override
+        public void start() {
+            start = System.nanoTime();
+        }
+
+        @Override
+        public void progress(long progressSize) {
+            size = progressSize;
+        }
+
+        @Override
+        public void finish() {
+            final long nanos = System.nanoTime() - start;
+            if (null != phase) {
+                phase.entries.increment();
+                phase.bytesRead.add(size);
+            }
+            offer(new Entry(path, null == phase ? null : phase.name, size, nanos));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 打包内容的类数量及字节码体积统计，用于估算元空间及代码缓存大小<br>
+ * WEB-INF/classes优先使用启动类查找时已建立的class索引（见{@link ClassIndex}），依赖jar只读取压缩包目录（见{@link ZipIndex}），
+ * 均不读取class数据。估算按全部类都会加载计算：
+ * <ul>
+ *     <li>元空间：每个类约1KB的固定开销加上与class文件大小相当的常量池、方法等元数据，
+ *     只作为首次触发元空间GC的阈值，不作为上限。运行时生成的代理类、lambda、反射访问器及JSP等在构建时无法统计，
+ *     上限仍由JVM参数模板或按容器内存计算（见{@link ContainerSizing}）</li>
+ *     <li>代码缓存：32MB基础空间加上字节码体积的一半，JIT编译的热点代码与字节码体积大致成正比</li>
+ * </ul>
+ * 估算值再加上余量，按16MB向上取整。
+ */
+public class ClassFootprint {
+
+    private static final String DOT_CLASS = ".class";
+
+    private static final long MB = 1024L * 1024L;
+
+    private static final long PER_CLASS_METADATA = 1024;
+
+    private static final long MIN_METASPACE_MB = 64;
+
+    private static final long MIN_CODE_CACHE_MB = 48;
+
+    private static final long MAX_CODE_CACHE_MB = 2048;
+
+    private final AtomicLong classCount = new AtomicLong();
+
+    private final AtomicLong bytecodeSize = new AtomicLong();
+
+    /**
+     * 统计class索引中的类
+     *
+     * @param classes class索引中的类
+     * @return this
+     */
+    public ClassFootprint addClasses(Collection<ClassIndex.ClassInfo> classes) {
+        for (ClassIndex.ClassInfo info : classes) {
+            add(info.getPath(), info.getSize());
+        }
+        return this;
+    }
+
+    /**
+     * 统计目录下的class文件，只读取文件属性
+     *
+     * @param dir class文件根目录，不存在时忽略
+     * @return this
+     */
+    public ClassFootprint addDir(File dir) {
+        if (false == dir.isDirectory()) {
+            return this;
+        }
+        final Path root = dir.toPath();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    add(root.relativize(path).toString().replace(File.separatorChar, '/'), attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    /**
+     * 在共享线程池（见{@link SharedExecutors}）中并行统计jar中的class条目，只读取压缩包目录
+     *
+     * @param jars jar文件
+     * @return this
+     */
+    public ClassFootprint addJars(Collection<File> jars) {
+        final ExecutorService executor = SharedExecutors.get("bin-scan", 0);
+        final List<Future<?>> futures = new ArrayList<>(jars.size());
+        for (File jar : jars) {
+            futures.add(executor.submit(() -> {
+                final ZipIndex index = ZipIndex.open(jar, StandardCharsets.UTF_8);
+                for (String name : index.names()) {
+                    add(name, index.size(name));
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return 类数量
+     */
+    public long getClassCount() {
+        return classCount.get();
+    }
+
+    /**
+     * @return 字节码体积，单位byte
+     */
+    public long getBytecodeSize() {
+        return bytecodeSize.get();
+    }
+
+    /**
+     * 首次触发元空间GC的阈值，用于-XX:MetaspaceSize，取打包内容全部加载时的估算值，避免启动过程中因元空间增长反复Full GC
+     *
+     * @param headroomPercent 余量百分比
+     * @return 大小，单位MB
+     */
+    public long metaspaceMb(int headroomPercent) {
+        final long estimate = classCount.get() * PER_CLASS_METADATA + bytecodeSize.get();
+        return Math.max(MIN_METASPACE_MB, withHeadroom(estimate, headroomPercent));
+    }
+
+    /**
+     * 估算的代码缓存上限，用于-XX:ReservedCodeCacheSize
+     *
+     * @param headroomPercent 余量百分比
+     * @return 大小，单位MB
+     */
+    public long reservedCodeCacheMb(int headroomPercent) {
+        final long estimate = 32 * MB + bytecodeSize.get() / 2;
+        return Math.min(MAX_CODE_CACHE_MB, Math.max(MIN_CODE_CACHE_MB, withHeadroom(estimate, headroomPercent)));
+    }
+
+    /**
+     * 代码缓存初始大小，用于-XX:InitialCodeCacheSize，取上限的1/4，减少启动期间代码缓存的扩容
+     *
+     * @param headroomPercent 余量百分比
+     * @return 大小，单位MB
+     */
+    public long initialCodeCacheMb(int headroomPercent) {
+        return Math.max(1, reservedCodeCacheMb(headroomPercent) / 4);
+    }
+
+    private void add(String name, long size) {
+        if (false == name.endsWith(DOT_CLASS) || name.endsWith("module-info.class") || size < 0) {
+            return;
+        }
+        classCount.incrementAndGet();
+        bytecodeSize.addAndGet(size);
+    }
+
+    private static long withHeadroom(long bytes, int headroomPercent) {
+        return roundUp(bytes + bytes * headroomPercent / 100);
+    }
+
+    /**
+     * 按16MB向上取整，单位MB
+     */
+    private static long roundUp(long bytes) {
+        final long unit = 16 * MB;
+        return (bytes + unit - 1) / unit * unit / MB;
+    }
+}
@@ -0,0 +1,232 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * class文件头<br>
+ * 只读取常量池及其后的access_flags、this_class、super_class，不读取字段、方法及属性；
+ * 数据读入线程内复用的缓存，读到super_class即停止，不像{@link org.springframework.asm.ClassReader}那样先将整个文件读入再复制一份。
+ */
+public final class ClassHeader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int READ_SIZE = 8192;
+
+    private static final ThreadLocal<Reader> READER = ThreadLocal.withInitial(Reader::new);
+
+    private final int access;
+
+    private final String className;
+
+    private final String superName;
+
+    private ClassHeader(int access, String className, String superName) {
+        this.access = access;
+        this.className = className;
+        this.superName = superName;
+    }
+
+    /**
+     * 读取class文件头
+     *
+     * @param file class文件
+     * @return class文件头
+     * @throws IOException IO异常或文件不是合法的class文件
+     */
+    public static ClassHeader read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * 读取class文件头，读取后流停在super_class之后的某个位置
+     *
+     * @param in class文件流
+     * @return class文件头
+     * @throws IOException IO异常或不是合法的class文件
+     */
+    public static ClassHeader read(InputStream in) throws IOException {
+        final Reader reader = READER.get();
+        try {
+            return reader.read(in);
+        } finally {
+            reader.in = null;
+        }
+    }
+
+    /**
+     * 类名或父类名是否包含matchClass，按类名匹配启动类的唯一规则
+     *
+     * @param matchClass 匹配的类名片段
+     * @return 是否匹配
+     */
+    public boolean matches(String matchClass) {
+        return matches(className, superName, matchClass);
+    }
+
+    /**
+     * 类名或父类名是否包含matchClass，按类名匹配启动类的唯一规则，
+     * 扫描class文件头（{@link ClassUtil}）及查询class索引（{@link ClassIndex}）均按此规则匹配
+     *
+     * @param className  内部格式的类名
+     * @param superName  内部格式的父类名，可以为null
+     * @param matchClass 匹配的类名片段
+     * @return 是否匹配
+     */
+    public static boolean matches(String className, String superName, String matchClass) {
+        return className.contains(matchClass) || (null != superName && superName.contains(matchClass));
+    }
+
+    /**
+     * @return 访问标记
+     */
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * @return 类名，内部格式，如java/lang/String
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return 父类名，内部格式，java/lang/Object及module-info为null
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * 线程内复用的读取缓存，只保存文件开头到super_class的部分
+     */
+    private static class Reader {
+        private byte[] buf = new byte[READ_SIZE];
+        private int[] offsets = new int[256];
+        private int len;
+        private InputStream in;
+
+        ClassHeader read(InputStream in) throws IOException {
+            this.in = in;
+            this.len = 0;
+            require(10);
+            if (readInt(0) != MAGIC) {
+                throw new IOException("不是合法的class文件");
+            }
+            final int count = readUnsignedShort(8);
+            if (offsets.length < count) {
+                offsets = new int[Math.max(count, offsets.length * 2)];
+            }
+            int pos = 10;
+            for (int i = 1; i < count; i++) {
+                require(pos + 3);
+                offsets[i] = pos;
+                switch (buf[pos]) {
+                    case 1:
+                        // CONSTANT_Utf8
+                        pos += 3 + readUnsignedShort(pos + 1);
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        pos += 5;
+                        break;
+                    case 5:
+                    case 6:
+                        // long、double占两个常量池位置
+                        pos += 9;
+                        i++;
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        pos += 3;
+                        break;
+                    case 15:
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IOException("非法的常量池标记:" + buf[pos]);
+                }
+            }
+            require(pos + 6);
+            final int access = readUnsignedShort(pos);
+            final int superIndex = readUnsignedShort(pos + 4);
+            return new ClassHeader(access, readClass(readUnsignedShort(pos + 2), count),
+                    superIndex == 0 ? null : readClass(superIndex, count));
+        }
+
+        /**
+         * 确保缓存中至少有size个字节，不足时从流中继续读取
+         */
+        private void require(int size) throws IOException {
+            if (size <= len) {
+                return;
+            }
+            if (size > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(size + READ_SIZE, buf.length * 2));
+            }
+            while (len < size) {
+                final int read = in.read(buf, len, buf.length - len);
+                if (read < 0) {
+                    throw new EOFException("class文件不完整");
+                }
+                len += read;
+            }
+        }
+
+        private String readClass(int index, int count) throws IOException {
+            if (index <= 0 || index >= count || buf[offsets[index]] != 7) {
+                throw new IOException("非法的类常量索引:" + index);
+            }
+            final int utf8 = readUnsignedShort(offsets[index] + 1);
+            if (utf8 <= 0 || utf8 >= count || buf[offsets[utf8]] != 1) {
+                throw new IOException("非法的字符串常量索引:" + utf8);
+            }
+            return readUtf8(offsets[utf8] + 3, readUnsignedShort(offsets[utf8] + 1));
+        }
+
+        /**
+         * 按class文件使用的modified UTF-8解码
+         */
+        private String readUtf8(int offset, int length) {
+            final char[] chars = new char[length];
+            int count = 0;
+            final int end = offset + length;
+            while (offset < end) {
+                final int c = buf[offset++] & 0xFF;
+                if (c < 0x80) {
+                    chars[count++] = (char) c;
+                } else if (c < 0xE0) {
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (buf[offset++] & 0x3F));
+                } else {
+                    chars[count++] = (char) (((c & 0x0F) << 12) | ((buf[offset++] & 0x3F) << 6) | (buf[offset++] & 0x3F));
+                }
+            }
+            return new String(chars, 0, count);
+        }
+
+        private int readUnsignedShort(int offset) {
+            return ((buf[offset] & 0xFF) << 8) | (buf[offset + 1] & 0xFF);
+        }
+
+        private int readInt(int offset) {
+            return (readUnsignedShort(offset) << 16) | readUnsignedShort(offset + 2);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * class元数据索引<br>
+ * 记录目录下每个class文件的类名、父类、接口、类注解及是否有public static void main(String[])方法，
+ * 以文件相对路径、大小及修改时间为键保存在磁盘上；再次{@link #update(File)}时只重新解析新增或变化的class文件，
+ * 启动类查找等字节码分析直接查询索引，不再全量扫描。<br>
+ * 类名均为内部格式，如com/demo/Application。
+ * <pre>
+ * 索引文件（UTF-8，每行以TAB分隔，列表以逗号分隔）：
+ * #bin-class-index	版本	class根目录
+ * 相对路径	大小	修改时间	类名	父类	接口	注解	是否有main方法(0/1)
+ * </pre>
+ */
+public class ClassIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassIndex.class);
+
+    private static final String HEADER = "#bin-class-index";
+
+    private static final String VERSION = "1";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String LIST_SEPARATOR = ",";
+
+    private static final String DOT_CLASS = ".class";
+
+    private static final String MAIN_DESCRIPTOR = "([Ljava/lang/String;)V";
+
+    private final File indexFile;
+
+    /**
+     * 相对路径 -> class信息，按路径排序
+     */
+    private Map<String, ClassInfo> classes = new TreeMap<>();
+
+    /**
+     * 索引对应的class根目录
+     */
+    private String root;
+
+    /**
+     * 最近一次更新时重新解析的class文件数
+     */
+    private int parsedCount;
+
+    private ClassIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * 加载索引文件，文件不存在、版本不一致或损坏时返回空索引
+     *
+     * @param indexFile 索引文件
+     * @return 索引
+     */
+    public static ClassIndex load(File indexFile) {
+        final ClassIndex index = new ClassIndex(indexFile);
+        if (false == indexFile.isFile()) {
+            return index;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(FileUtil.getInputStream(indexFile), StandardCharsets.UTF_8))) {
+            final String header = reader.readLine();
+            final String[] columns = null == header ? new String[0] : header.split(SEPARATOR, -1);
+            if (columns.length != 3 || false == HEADER.equals(columns[0]) || false == VERSION.equals(columns[1])) {
+                return index;
+            }
+            index.root = columns[2];
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final ClassInfo info = ClassInfo.parse(line);
+                index.classes.put(info.path, info);
+            }
+        } catch (IOException | RuntimeException e) {
+            index.root = null;
+            index.classes.clear();
+        }
+        return index;
+    }
+
+    /**
+     * 按目录当前内容更新索引：大小及修改时间未变化的class文件沿用索引中的信息，其余文件并行解析，已删除的文件从索引中移除
+     *
+     * @param classesDir class根目录
+     * @return this
+     */
+    public ClassIndex update(File classesDir) {
+        final String newRoot = classesDir.getAbsolutePath();
+        final Map<String, ClassInfo> previous = newRoot.equals(root) ? classes : Collections.emptyMap();
+        final Map<String, ClassInfo> current = new TreeMap<>();
+        final List<ClassInfo> changed = new ArrayList<>();
+        if (classesDir.isDirectory()) {
+            final Path rootPath = classesDir.toPath();
+            try {
+                Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return dir.equals(rootPath) || false == dir.getFileName().toString().startsWith(".")
+                                ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile() && file.getFileName().toString().endsWith(DOT_CLASS)) {
+                            final String path = rootPath.relativize(file).toString().replace(File.separatorChar, '/');
+                            final long size = attrs.size();
+                            final long time = attrs.lastModifiedTime().toMillis();
+                            final ClassInfo old = previous.get(path);
+                            if (null != old && old.size == size && old.time == time) {
+                                current.put(path, old);
+                            } else {
+                                final ClassInfo info = new ClassInfo(path, size, time);
+                                current.put(path, info);
+                                changed.add(info);
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        try {
+            changed.parallelStream().forEach(info -> info.parse(new File(classesDir, info.path)));
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        this.root = newRoot;
+        this.classes = current;
+        this.parsedCount = changed.size();
+        return this;
+    }
+
+    /**
+     * 保存索引，先写入临时文件再替换，写出中断不会留下不完整的索引
+     */
+    public void save() {
+        final File tempFile = new File(indexFile.getAbsolutePath() + ".tmp");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(FileUtil.getOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                writer.write(HEADER + SEPARATOR + VERSION + SEPARATOR + root);
+                writer.newLine();
+                for (ClassInfo info : classes.values()) {
+                    writer.write(info.format());
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 查找有main方法且带有指定注解的类
+     *
+     * @param annotationName 注解类名，如org.springframework.boot.autoconfigure.SpringBootApplication
+     * @return 类名，按类名排序
+     */
+    public List<String> findMainClasses(String annotationName) {
+        final String annotation = annotationName.replace('.', '/');
+        return classes.values().stream()
+                .filter(info -> info.main && info.annotations.contains(annotation))
+                .map(ClassInfo::getClassName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 查找类名或父类名包含matchClass的类，与{@link ClassUtil#findSingleMainClass(File, String)}同样按{@link ClassHeader#matches(String, String, String)}匹配
+     *
+     * @param matchClass 匹配的类名片段
+     * @return 类名，按类名排序
+     */
+    public List<String> findMatchClasses(String matchClass) {
+        return classes.values().stream()
+                .filter(info -> ClassHeader.matches(info.name, info.superName, matchClass))
+                .map(ClassInfo::getClassName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return 所有class信息，按相对路径排序
+     */
+    public Collection<ClassInfo> getClasses() {
+        return Collections.unmodifiableCollection(classes.values());
+    }
+
+    /**
+     * @return 最近一次更新时重新解析的class文件数
+     */
+    public int getParsedCount() {
+        return parsedCount;
+    }
+
+    /**
+     * 解析class数据
+     *
+     * @param path  class文件路径，如com/demo/Application.class
+     * @param bytes class数据
+     * @return class信息
+     */
+    public static ClassInfo parse(String path, byte[] bytes) {
+        final ClassInfo info = new ClassInfo(path, bytes.length, 0);
+        info.parse(bytes);
+        return info;
+    }
+
+    /**
+     * 单个class文件的元数据
+     */
+    public static class ClassInfo {
+        private final String path;
+        private final long size;
+        private final long time;
+        private String name;
+        private String superName;
+        private List<String> interfaces = Collections.emptyList();
+        private List<String> annotations = Collections.emptyList();
+        private boolean main;
+
+        ClassInfo(String path, long size, long time) {
+            this.path = path;
+            this.size = size;
+            this.time = time;
+        }
+
+        static ClassInfo parse(String line) {
+            final String[] columns = line.split(SEPARATOR, -1);
+            if (columns.length != 8) {
+                throw new IllegalArgumentException("索引行格式错误:" + line);
+            }
+            final ClassInfo info = new ClassInfo(columns[0], Long.parseLong(columns[1]), Long.parseLong(columns[2]));
+            info.name = columns[3];
+            info.superName = columns[4].isEmpty() ? null : columns[4];
+            info.interfaces = splitList(columns[5]);
+            info.annotations = splitList(columns[6]);
+            info.main = "1".equals(columns[7]);
+            return info;
+        }
+
+        String format() {
+            return path + SEPARATOR + size + SEPARATOR + time + SEPARATOR + name
+                    + SEPARATOR + (null == superName ? "" : superName)
+                    + SEPARATOR + String.join(LIST_SEPARATOR, interfaces)
+                    + SEPARATOR + String.join(LIST_SEPARATOR, annotations)
+                    + SEPARATOR + (main ? "1" : "0");
+        }
+
+        /**
+         * 读取并解析class文件
+         */
+        void parse(File file) {
+            final byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            parse(bytes);
+        }
+
+        /**
+         * 解析class数据，跳过方法体、调试信息及栈帧；不是合法的class数据时按路径推断类名，不作为启动类候选
+         */
+        void parse(byte[] bytes) {
+            try {
+                accept(new ClassReader(bytes));
+            } catch (RuntimeException e) {
+                logger.error("解析class文件出错:{}", path, e);
+                this.name = path.substring(0, path.length() - DOT_CLASS.length());
+                this.superName = null;
+                this.interfaces = Collections.emptyList();
+                this.annotations = Collections.emptyList();
+                this.main = false;
+            }
+        }
+
+        private void accept(ClassReader reader) {
+            final List<String> annotationNames = new ArrayList<>();
+            reader.accept(new ClassVisitor(Opcodes.ASM7) {
+                @Override
+                public void visit(int version, int access, String name, String signature, String superName,
+                                  String[] interfaces) {
+                    ClassInfo.this.name = name;
+                    ClassInfo.this.superName = superName;
+                    ClassInfo.this.interfaces = null == interfaces ? Collections.emptyList() : Arrays.asList(interfaces);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    annotationNames.add(descriptor.substring(1, descriptor.length() - 1));
+                    return null;
+                }
+
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                                 String[] exceptions) {
+                    if ("main".equals(name) && MAIN_DESCRIPTOR.equals(descriptor)
+                            && (access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC)) == (Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC)) {
+                        main = true;
+                    }
+                    return null;
+                }
+            }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            this.annotations = annotationNames;
+        }
+
+        private static List<String> splitList(String value) {
+            return value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.split(LIST_SEPARATOR));
+        }
+
+        /**
+         * @return class文件相对路径
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return class文件大小，单位byte
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return 类名，如com.demo.Application
+         */
+        public String getClassName() {
+            return name.replace('/', '.');
+        }
+
+        /**
+         * @return 内部格式的类名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 内部格式的父类名，java/lang/Object及module-info为null
+         */
+        public String getSuperName() {
+            return superName;
+        }
+
+        /**
+         * @return 内部格式的接口名
+         */
+        public List<String> getInterfaces() {
+            return interfaces;
+        }
+
+        /**
+         * @return 内部格式的类注解名
+         */
+        public List<String> getAnnotations() {
+            return annotations;
+        }
+
+        /**
+         * @return 是否有public static void main(String[])方法
+         */
+        public boolean hasMain() {
+            return main;
+        }
+    }
+}
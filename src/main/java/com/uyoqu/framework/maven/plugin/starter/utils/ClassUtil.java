@@ -3,43 +3,35 @@ package com.uyoqu.framework.maven.plugin.starter.utils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.asm.ClassReader;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Deque;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class ClassUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(ClassUtil.class);
 
-    private static final FileFilter CLASS_FILE_FILTER = ClassUtil::isClassFile;
-
-    private static final FileFilter PACKAGE_FOLDER_FILTER = ClassUtil::isPackageFolder;
-
     private static final String DOT_CLASS = ".class";
 
-    private static String matchClass;
+    /**
+     * 单个扫描任务读取的class文件数
+     */
+    private static final int BATCH_SIZE = 256;
 
     public static String findSingleMainClass(File rootFolder, String matchClass) throws IOException {
         if (StringUtils.isBlank(matchClass) || rootFolder == null){ return ""; }
-        ClassUtil.matchClass = matchClass;
-        List<String> callback = new ArrayList<>();
-        findMainClasses(rootFolder, callback);
-        return callbackCheck(callback);
+        return callbackCheck(findMainClasses(rootFolder, matchClass));
     }
 
     private static String callbackCheck(List<String> callback) {
         if (callback.size() >= 2){
-            logger.error("符合匹配规则的类不止一个");
+            logger.error("符合匹配规则的类不止一个，共{}个", callback.size());
             logger.error("检测到的多个启动类为：{}", callback);
             return "";
         } else if (callback.size() == 1){
@@ -49,54 +41,86 @@ public class ClassUtil {
         }
     }
 
-    static void findMainClasses(File rootFolder, List<String> callback)
+    /**
+     * 扫描目录下的全部class文件，只读取class文件头判断类名或父类名是否包含matchClass（见{@link ClassHeader#matches(String)}）<br>
+     * 调用线程遍历目录，class文件按批在共享线程池（见{@link SharedExecutors}）中并行读取
+     *
+     * @param rootFolder class文件根目录
+     * @param matchClass 匹配的类名片段
+     * @return 匹配的类名，按类名排序，与扫描顺序无关
+     * @throws IOException IO异常
+     */
+    static List<String> findMainClasses(File rootFolder, String matchClass)
             throws IOException {
         if (!rootFolder.exists()) {
-            return; // nothing to do
+            return Collections.emptyList(); // nothing to do
         }
         if (!rootFolder.isDirectory()) {
             throw new IllegalArgumentException(
                     "根目录必须为正常的目录");
         }
-        String prefix = rootFolder.getAbsolutePath() + "/";
-        Deque<File> stack = new ArrayDeque<>();
-        stack.push(rootFolder);
-        while (!stack.isEmpty()) {
-            File file = stack.pop();
-            if (file.isFile()) {
-                try (InputStream inputStream = new FileInputStream(file)) {
-                    if (isMatchMainClass(inputStream)) {
-                        String className = convertToClassName(file.getAbsolutePath(), prefix);
-                        callback.add(className);
+        final String prefix = rootFolder.getAbsolutePath() + File.separator;
+        final List<File> classFiles = new ArrayList<>();
+        collectClassFiles(rootFolder, classFiles);
+        final ExecutorService executor = SharedExecutors.get("bin-scan", 0);
+        final List<Future<List<String>>> futures = new ArrayList<>();
+        for (int from = 0; from < classFiles.size(); from += BATCH_SIZE) {
+            final List<File> batch = classFiles.subList(from, Math.min(from + BATCH_SIZE, classFiles.size()));
+            futures.add(executor.submit(() -> {
+                final List<String> matches = new ArrayList<>();
+                for (File file : batch) {
+                    if (isMatchMainClass(file, matchClass)) {
+                        matches.add(convertToClassName(file.getAbsolutePath(), prefix));
                     }
                 }
-            } else if (file.isDirectory()) {
-                pushAllSorted(stack, file.listFiles(PACKAGE_FOLDER_FILTER));
-                pushAllSorted(stack, file.listFiles(CLASS_FILE_FILTER));
+                return matches;
+            }));
+        }
+        final List<String> result = new ArrayList<>();
+        try {
+            for (Future<List<String>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<List<String>> future : futures) {
+                future.cancel(false);
             }
         }
+        Collections.sort(result);
+        return result;
     }
 
-    private static void pushAllSorted(Deque<File> stack, File[] files) {
-        Arrays.sort(files, Comparator.comparing(File::getName));
-        for (File file : files) {
-            stack.push(file);
+    /**
+     * 深度优先收集目录下的class文件，跳过以.开头的目录
+     */
+    private static void collectClassFiles(File folder, List<File> classFiles) {
+        final File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File file : children) {
+            if (isClassFile(file)) {
+                classFiles.add(file);
+            } else if (isPackageFolder(file)) {
+                collectClassFiles(file, classFiles);
+            }
         }
     }
 
-    private static boolean isMatchMainClass(InputStream inputStream) {
+    private static boolean isMatchMainClass(File file, String matchClass) {
         try {
-            ClassReader classReader = new ClassReader(inputStream);
-            String className = ClassUtil.matchClass;
-            if (classReader.getSuperName().contains(className)
-                    || classReader.getClassName().contains(className)){
-                return true;
-            } else {
-                return  false;
-            }
+            return ClassHeader.read(file).matches(matchClass);
         }
         catch (IOException ex) {
-            logger.error("主方法匹配出错",ex);
+            logger.error("主方法匹配出错:{}", file, ex);
         }
         return false;
     }
@@ -112,10 +136,10 @@ public class ClassUtil {
     }
 
     private static boolean isPackageFolder(File file) {
-        return file.isDirectory() && !file.getName().startsWith(".");
+        return !file.getName().startsWith(".") && file.isDirectory();
     }
 
     private static boolean isClassFile(File file) {
-        return file.isFile() && file.getName().endsWith(DOT_CLASS);
+        return file.getName().endsWith(DOT_CLASS) && file.isFile();
     }
 }
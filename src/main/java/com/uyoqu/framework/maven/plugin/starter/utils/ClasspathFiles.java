@@ -0,0 +1,80 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 启动classpath文件<br>
+ * 构建时按确定的顺序生成classpath，启动脚本不再在运行时列出lib目录，各主机的类查找顺序一致，命令行长度也不随依赖数增长：
+ * <ul>
+ *     <li>pathing jar：只包含清单的jar，Class-Path中的相对路径以jar所在目录为基准，Java 8及以上均可使用</li>
+ *     <li>argfile：JVM参数文件，以@文件名传给java命令，路径以启动时的工作目录为基准，需Java 9及以上</li>
+ * </ul>
+ */
+public class ClasspathFiles {
+
+    /**
+     * 生成只包含清单的pathing jar
+     *
+     * @param paths classpath条目，相对于jar所在目录，使用/分隔，目录以/结尾
+     * @param time  清单条目的修改时间，按本地时区换算为DOS时间，相同的输入及时间得到相同的jar
+     * @return jar内容
+     */
+    public static byte[] pathingJar(List<String> paths, long time) {
+        final Manifest manifest = new Manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        final StringBuilder classPath = new StringBuilder();
+        for (String path : paths) {
+            if (classPath.length() > 0) {
+                classPath.append(' ');
+            }
+            classPath.append(toUrlPath(path));
+        }
+        attributes.put(Attributes.Name.CLASS_PATH, classPath.toString());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            final ZipEntry entry = new ZipEntry(JarFile.MANIFEST_NAME);
+            entry.setTime(time);
+            out.putNextEntry(entry);
+            manifest.write(out);
+            out.closeEntry();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 生成包含-classpath参数的JVM参数文件
+     *
+     * @param paths     classpath条目，相对于启动时的工作目录
+     * @param separator 路径分隔符，如:
+     * @return 参数文件内容
+     */
+    public static byte[] argFile(List<String> paths, String separator) {
+        // 参数文件中以空白分隔参数，整个classpath加引号，路径中的空格及反斜杠不会被拆分或转义
+        final String classPath = String.join(separator, paths).replace("\\", "\\\\").replace("\"", "\\\"");
+        return ("-classpath\n\"" + classPath + "\"\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 清单Class-Path中的条目为相对URL，空格等字符需要转义
+     */
+    private static String toUrlPath(String path) {
+        try {
+            return new URI(null, null, path, null).getRawPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("非法的classpath条目:" + path, e);
+        }
+    }
+}
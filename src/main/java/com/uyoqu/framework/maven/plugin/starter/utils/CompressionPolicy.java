@@ -0,0 +1,203 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * 压缩策略<br>
+ * 按条目路径的Ant风格通配符（如 WEB-INF/lib/*.jar、**&#47;*.png，不区分大小写）决定条目以STORED方式存储还是以指定级别deflate压缩，
+ * 按规则顺序匹配，先匹配先生效，均不匹配时使用默认级别压缩。<br>
+ * 每条规则同时统计匹配条目的数量、压缩前后大小及压缩耗时，线程安全。
+ * <pre>
+ * 规则格式：通配符=stored 或 通配符=压缩级别(0~9)
+ * 例如：
+ * **&#47;*.jar=stored
+ * **&#47;*.js=9
+ * </pre>
+ */
+public class CompressionPolicy {
+
+    /**
+     * 规则中表示STORED的取值
+     */
+    public static final String STORED = "stored";
+
+    /**
+     * 默认以STORED存储的已压缩格式
+     */
+    private static final List<String> COMPRESSED_EXTENSIONS = Arrays.asList(
+            "jar", "war", "ear", "zip", "gz", "tgz", "bz2", "xz", "7z", "rar",
+            "png", "jpg", "jpeg", "gif", "webp", "woff", "woff2", "mp3", "mp4", "ogg", "webm");
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    private final Rule defaultRule;
+
+    /**
+     * 构造
+     *
+     * @param rules        规则列表，格式为 通配符=stored 或 通配符=压缩级别
+     * @param defaultLevel 未匹配任何规则时的压缩级别
+     */
+    public CompressionPolicy(List<String> rules, int defaultLevel) {
+        matcher.setCaseSensitive(false);
+        for (String rule : rules) {
+            this.rules.add(Rule.parse(rule));
+        }
+        this.defaultRule = new Rule("**", ZipEntry.DEFLATED, defaultLevel);
+    }
+
+    /**
+     * 默认策略：常见的已压缩格式使用STORED，其余使用给定级别压缩
+     *
+     * @param defaultLevel 非已压缩格式的压缩级别
+     * @return 压缩策略
+     */
+    public static CompressionPolicy defaults(int defaultLevel) {
+        final List<String> rules = new ArrayList<>();
+        for (String extension : COMPRESSED_EXTENSIONS) {
+            rules.add("**/*." + extension + "=" + STORED);
+        }
+        return new CompressionPolicy(rules, defaultLevel);
+    }
+
+    /**
+     * 所有条目均使用默认级别压缩的策略
+     *
+     * @return 压缩策略
+     */
+    public static CompressionPolicy deflateAll() {
+        return new CompressionPolicy(Collections.emptyList(), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * 查找条目对应的规则
+     *
+     * @param path 条目路径
+     * @return 规则
+     */
+    public Rule match(String path) {
+        for (Rule rule : rules) {
+            if (matcher.match(rule.pattern, path)) {
+                return rule;
+            }
+        }
+        return defaultRule;
+    }
+
+    /**
+     * 各规则的统计结果，只包含有条目匹配的规则
+     *
+     * @return 统计结果，每条规则一行
+     */
+    public List<String> report() {
+        final List<String> lines = new ArrayList<>();
+        final List<Rule> all = new ArrayList<>(rules);
+        all.add(defaultRule);
+        for (Rule rule : all) {
+            final long entries = rule.entries.sum();
+            if (entries == 0) {
+                continue;
+            }
+            final long in = rule.bytesIn.sum();
+            final long out = rule.bytesOut.sum();
+            lines.add(String.format("%s: %d个条目, %.1fKB -> %.1fKB (%.1f%%), 耗时%dms",
+                    rule, entries, in / 1024.0, out / 1024.0, in == 0 ? 100.0 : out * 100.0 / in,
+                    rule.nanos.sum() / 1000000));
+        }
+        return lines;
+    }
+
+    /**
+     * 策略签名，规则变化时增量打包不再复用旧的压缩数据
+     */
+    @Override
+    public String toString() {
+        return rules + "," + defaultRule;
+    }
+
+    /**
+     * 压缩规则
+     */
+    public static class Rule {
+        private final String pattern;
+        private final int method;
+        private final int level;
+
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Rule(String pattern, int method, int level) {
+            this.pattern = pattern;
+            this.method = method;
+            this.level = level;
+        }
+
+        static Rule parse(String rule) {
+            final int index = rule.lastIndexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("压缩规则格式应为 通配符=stored 或 通配符=压缩级别: " + rule);
+            }
+            final String pattern = StringUtils.removeStart(rule.substring(0, index).trim(), "/");
+            final String value = rule.substring(index + 1).trim();
+            if (STORED.equalsIgnoreCase(value)) {
+                return new Rule(pattern, ZipEntry.STORED, Deflater.NO_COMPRESSION);
+            }
+            final int level;
+            try {
+                level = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("压缩级别必须为stored或0~9的数字: " + rule);
+            }
+            if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("压缩级别必须为stored或0~9的数字: " + rule);
+            }
+            return new Rule(pattern, ZipEntry.DEFLATED, level);
+        }
+
+        /**
+         * @return 压缩方式，{@link ZipEntry#STORED}或{@link ZipEntry#DEFLATED}
+         */
+        public int getMethod() {
+            return method;
+        }
+
+        /**
+         * @return deflate压缩级别
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * 记录一个条目的压缩结果
+         *
+         * @param in    压缩前大小
+         * @param out   压缩后大小
+         * @param nanos 耗时，单位纳秒
+         */
+        public void record(long in, long out, long nanos) {
+            this.entries.increment();
+            this.bytesIn.add(in);
+            this.bytesOut.add(out);
+            this.nanos.add(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return pattern + "=" + (method == ZipEntry.STORED ? STORED : String.valueOf(level));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+/**
+ * 按容器限制计算JVM内存及GC线程数的启动脚本片段<br>
+ * 启动时依次读取cgroup v2（memory.max、cpu.max）及cgroup v1（memory.limit_in_bytes、cpu.cfs_quota_us）的限制，
+ * 未限制或不在容器中时以/proc/meminfo及CPU核数为准，再按配置的百分比计算：
+ * <ul>
+ *     <li>堆：-Xms、-Xmx，写入JAVA_HEAP_OPTS</li>
+ *     <li>直接内存：-XX:MaxDirectMemorySize</li>
+ *     <li>元空间：-XX:MaxMetaspaceSize</li>
+ *     <li>GC线程：-XX:ParallelGCThreads为CPU数的百分比，-XX:ConcGCThreads为其1/4</li>
+ * </ul>
+ * 除堆以外的参数写入JAVA_SIZING_OPTS。百分比为0时不设置对应参数，保留JVM参数模板中的值。
+ * 脚本中直接给出各参数，不依赖-XX:MaxRAMPercentage等只在较新JDK中才支持的参数。
+ */
+public class ContainerSizing {
+
+    private int heapPercent;
+
+    private int directMemoryPercent;
+
+    private int metaspacePercent;
+
+    private int gcThreadsPercent;
+
+    /**
+     * 创建
+     *
+     * @return ContainerSizing
+     */
+    public static ContainerSizing create() {
+        return new ContainerSizing();
+    }
+
+    /**
+     * 设置堆占内存限制的百分比
+     *
+     * @param heapPercent 百分比，0表示不计算
+     * @return this
+     */
+    public ContainerSizing setHeapPercent(int heapPercent) {
+        this.heapPercent = checkPercent("heapPercent", heapPercent);
+        return this;
+    }
+
+    /**
+     * 设置直接内存占内存限制的百分比
+     *
+     * @param directMemoryPercent 百分比，0表示不计算
+     * @return this
+     */
+    public ContainerSizing setDirectMemoryPercent(int directMemoryPercent) {
+        this.directMemoryPercent = checkPercent("directMemoryPercent", directMemoryPercent);
+        return this;
+    }
+
+    /**
+     * 设置元空间上限占内存限制的百分比
+     *
+     * @param metaspacePercent 百分比，0表示不计算
+     * @return this
+     */
+    public ContainerSizing setMetaspacePercent(int metaspacePercent) {
+        this.metaspacePercent = checkPercent("metaspacePercent", metaspacePercent);
+        return this;
+    }
+
+    /**
+     * 设置并行GC线程数占CPU数的百分比
+     *
+     * @param gcThreadsPercent 百分比，0表示不计算
+     * @return this
+     */
+    public ContainerSizing setGcThreadsPercent(int gcThreadsPercent) {
+        if (gcThreadsPercent < 0) {
+            throw new IllegalArgumentException("gcThreadsPercent不能小于0:" + gcThreadsPercent);
+        }
+        this.gcThreadsPercent = gcThreadsPercent;
+        return this;
+    }
+
+    /**
+     * @return 是否计算元空间上限
+     */
+    public boolean isMetaspaceSized() {
+        return metaspacePercent > 0;
+    }
+
+    /**
+     * 生成脚本片段，设置JAVA_SIZING_OPTS，计算堆大小时覆盖JAVA_HEAP_OPTS
+     *
+     * @return 脚本片段
+     */
+    public String render() {
+        if (heapPercent + directMemoryPercent + metaspacePercent > 100) {
+            throw new IllegalArgumentException(String.format("堆、直接内存及元空间的百分比之和不能超过100：%d+%d+%d",
+                    heapPercent, directMemoryPercent, metaspacePercent));
+        }
+        final StringBuilder script = new StringBuilder();
+        script.append("MEM_LIMIT=\"\"\n")
+                .append("if [ -f /sys/fs/cgroup/memory.max ]; then\n")
+                .append("    MEM_LIMIT=`cat /sys/fs/cgroup/memory.max`\n")
+                .append("elif [ -f /sys/fs/cgroup/memory/memory.limit_in_bytes ]; then\n")
+                .append("    MEM_LIMIT=`cat /sys/fs/cgroup/memory/memory.limit_in_bytes`\n")
+                .append("fi\n")
+                .append("MEM_TOTAL_MB=`awk '/^MemTotal:/ {print int($2/1024)}' /proc/meminfo 2>/dev/null`\n")
+                .append("MEM_LIMIT_MB=\"\"\n")
+                .append("if [ -n \"$MEM_LIMIT\" ] && [ \"$MEM_LIMIT\" != \"max\" ]; then\n")
+                .append("    MEM_LIMIT_MB=$((MEM_LIMIT/1024/1024))\n")
+                .append("fi\n")
+                // cgroup v1未限制时为接近Long.MAX_VALUE的值，大于物理内存时以物理内存为准
+                .append("if [ -z \"$MEM_LIMIT_MB\" ] || { [ -n \"$MEM_TOTAL_MB\" ] && [ $MEM_LIMIT_MB -gt $MEM_TOTAL_MB ]; }; then\n")
+                .append("    MEM_LIMIT_MB=$MEM_TOTAL_MB\n")
+                .append("fi\n")
+                .append("CPU_COUNT=`getconf _NPROCESSORS_ONLN 2>/dev/null || echo 1`\n")
+                .append("CPU_QUOTA=\"\"\n")
+                .append("if [ -f /sys/fs/cgroup/cpu.max ]; then\n")
+                .append("    read CPU_QUOTA CPU_PERIOD < /sys/fs/cgroup/cpu.max\n")
+                .append("elif [ -f /sys/fs/cgroup/cpu/cpu.cfs_quota_us ]; then\n")
+                .append("    CPU_QUOTA=`cat /sys/fs/cgroup/cpu/cpu.cfs_quota_us`\n")
+                .append("    CPU_PERIOD=`cat /sys/fs/cgroup/cpu/cpu.cfs_period_us`\n")
+                .append("fi\n")
+                .append("if [ -n \"$CPU_QUOTA\" ] && [ \"$CPU_QUOTA\" != \"max\" ] && [ \"$CPU_QUOTA\" -gt 0 ] 2>/dev/null; then\n")
+                .append("    CPU_LIMIT=$(((CPU_QUOTA+CPU_PERIOD-1)/CPU_PERIOD))\n")
+                .append("    if [ $CPU_LIMIT -lt $CPU_COUNT ]; then\n")
+                .append("        CPU_COUNT=$CPU_LIMIT\n")
+                .append("    fi\n")
+                .append("fi\n")
+                .append("JAVA_SIZING_OPTS=\"\"\n")
+                .append("if [ -n \"$MEM_LIMIT_MB\" ]; then\n");
+        if (heapPercent > 0) {
+            script.append("    HEAP_MB=$((MEM_LIMIT_MB*").append(heapPercent).append("/100))\n")
+                    .append("    JAVA_HEAP_OPTS=\"-Xms${HEAP_MB}m -Xmx${HEAP_MB}m\"\n");
+        }
+        if (directMemoryPercent > 0) {
+            script.append("    JAVA_SIZING_OPTS=\"$JAVA_SIZING_OPTS -XX:MaxDirectMemorySize=$((MEM_LIMIT_MB*")
+                    .append(directMemoryPercent).append("/100))m\"\n");
+        }
+        if (metaspacePercent > 0) {
+            script.append("    JAVA_SIZING_OPTS=\"$JAVA_SIZING_OPTS -XX:MaxMetaspaceSize=$((MEM_LIMIT_MB*")
+                    .append(metaspacePercent).append("/100))m\"\n");
+        }
+        script.append("    :\n")
+                .append("fi\n");
+        if (gcThreadsPercent > 0) {
+            script.append("GC_THREADS=$((CPU_COUNT*").append(gcThreadsPercent).append("/100))\n")
+                    .append("if [ $GC_THREADS -lt 1 ]; then\n")
+                    .append("    GC_THREADS=1\n")
+                    .append("fi\n")
+                    .append("JAVA_SIZING_OPTS=\"$JAVA_SIZING_OPTS -XX:ParallelGCThreads=$GC_THREADS -XX:ConcGCThreads=$(((GC_THREADS+3)/4))\"\n");
+        }
+        script.append("echo \"memory limit: ${MEM_LIMIT_MB}MB, cpu count: $CPU_COUNT\"");
+        return script.toString();
+    }
+
+    private static int checkPercent(String name, int percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException(name + "应在0~100之间:" + percent);
+        }
+        return percent;
+    }
+}
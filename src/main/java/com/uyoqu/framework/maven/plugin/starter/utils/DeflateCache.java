@@ -0,0 +1,378 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * 按内容寻址的压缩数据缓存<br>
+ * 以条目内容的SHA-256摘要、压缩级别及运行时标识为键，保存条目的原始deflate数据、CRC及原始大小，
+ * 压缩时命中缓存的条目直接拼接缓存中的原始deflate数据，不再重新压缩；缓存目录可在多个工程及多次构建间共享。<br>
+ * 相同内容在不同JDK版本或不同zlib实现下压缩结果可能不同，运行时标识由JDK版本及该级别下固定样本的压缩结果摘要组成，
+ * 换用JDK或系统zlib后不会命中其他运行时写入的条目，保证输出与不使用缓存时一致。<br>
+ * 缓存文件先写入临时文件再改名，多个构建同时写入同一条目互不影响；命中时更新文件修改时间，
+ * {@link #trim()}按修改时间淘汰最久未使用的条目，使缓存总大小不超过上限。
+ * 其他构建可能在命中后、读取前淘汰缓存文件，此时{@link Entry#open()}抛出{@link NoSuchFileException}，由调用方改为直接压缩。
+ * <pre>
+ * 缓存文件：目录/摘要前两位/摘要-级别-运行时标识.deflate
+ * 文件格式：魔数(4字节) 原始大小(8字节) CRC(8字节) 原始deflate数据
+ * </pre>
+ */
+public class DeflateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeflateCache.class);
+
+    /**
+     * 默认缓存大小上限，2GB
+     */
+    public static final long DEFAULT_MAX_SIZE = 2048L * 1024 * 1024;
+
+    /**
+     * 默认缓存的最小条目大小，64KB，更小的条目压缩很快，不值得单独保存一个文件
+     */
+    public static final long DEFAULT_MIN_ENTRY_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x42444331;
+
+    private static final int HEADER_SIZE = 4 + 8 + 8;
+
+    private static final String EXT = ".deflate";
+
+    /**
+     * 各压缩级别的运行时标识
+     */
+    private static final Map<Integer, String> RUNTIME_IDS = new ConcurrentHashMap<>();
+
+    private final File dir;
+
+    private final long maxSize;
+
+    private final long minEntrySize;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicLong hitBytes = new AtomicLong();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private final AtomicInteger evictions = new AtomicInteger();
+
+    /**
+     * 构造
+     *
+     * @param dir          缓存目录
+     * @param maxSize      缓存大小上限，单位byte
+     * @param minEntrySize 缓存的最小条目大小，单位byte
+     */
+    public DeflateCache(File dir, long maxSize, long minEntrySize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+        this.minEntrySize = minEntrySize;
+    }
+
+    /**
+     * 是否缓存该条目，只缓存不小于最小条目大小的DEFLATED条目
+     *
+     * @param method 压缩方式
+     * @param length 原始大小
+     * @return 是否缓存
+     */
+    public boolean accepts(int method, long length) {
+        return method == ZipEntry.DEFLATED && length >= minEntrySize;
+    }
+
+    /**
+     * 计算文件的缓存键
+     *
+     * @param file  文件
+     * @param level 压缩级别
+     * @return 缓存键
+     * @throws IOException IO异常
+     */
+    public String key(File file, int level) throws IOException {
+        return ZipFingerprints.sha256Hex(file) + "-" + level + "-" + runtimeId(level);
+    }
+
+    /**
+     * 运行时标识：JDK版本及当前zlib在该级别下压缩固定样本的结果，取摘要前12位
+     *
+     * @param level 压缩级别
+     * @return 运行时标识
+     */
+    public static String runtimeId(int level) {
+        return RUNTIME_IDS.computeIfAbsent(level, l -> {
+            // 样本包含重复文本及伪随机数据，覆盖匹配查找及哈夫曼编码
+            final byte[] sample = new byte[64 * 1024];
+            int seed = 0x2545F491;
+            for (int i = 0; i < sample.length; i++) {
+                seed = seed * 1103515245 + 12345;
+                sample[i] = (i & 1024) == 0 ? (byte) ("0123456789abcdef".charAt(i % 16)) : (byte) (seed >>> 24);
+            }
+            final Deflater deflater = ZlibPool.deflater(l, true);
+            try {
+                deflater.setInput(sample);
+                deflater.finish();
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(sample.length);
+                final byte[] buffer = new byte[IoUtil.DEFAULT_BUFFER_SIZE];
+                while (false == deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                final byte[] version = (System.getProperty("java.vendor") + '|' + System.getProperty("java.version") + '|')
+                        .getBytes(StandardCharsets.UTF_8);
+                final byte[] compressed = out.toByteArray();
+                final byte[] identity = new byte[version.length + compressed.length];
+                System.arraycopy(version, 0, identity, 0, version.length);
+                System.arraycopy(compressed, 0, identity, version.length, compressed.length);
+                return ZipFingerprints.sha256Hex(identity).substring(0, 12);
+            } finally {
+                ZlibPool.release(deflater, l, true);
+            }
+        });
+    }
+
+    /**
+     * 查找缓存，命中时更新修改时间
+     *
+     * @param key 缓存键
+     * @return 缓存条目，未命中或缓存文件损坏时返回null
+     */
+    public Entry get(String key) {
+        final File file = fileOf(key);
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(IoUtil.toStream(file))) {
+                if (in.readInt() == MAGIC) {
+                    final Entry entry = new Entry(file, in.readLong(), in.readLong(), file.length() - HEADER_SIZE);
+                    file.setLastModified(System.currentTimeMillis());
+                    hits.incrementAndGet();
+                    hitBytes.addAndGet(entry.size);
+                    return entry;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("压缩缓存文件损坏或已被淘汰，忽略：{}", file, e);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 保存条目，写入失败时只记录日志，不影响压缩
+     *
+     * @param key  缓存键
+     * @param crc  原始数据的CRC
+     * @param size 原始大小
+     * @param data 原始deflate数据
+     */
+    public void put(String key, long crc, long size, InputStream data) {
+        final File file = fileOf(key);
+        try {
+            FileUtil.mkParentDirs(file);
+            final File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try {
+                try (DataOutputStream out = new DataOutputStream(FileUtil.getOutputStream(tempFile))) {
+                    out.writeInt(MAGIC);
+                    out.writeLong(size);
+                    out.writeLong(crc);
+                    IoUtil.copy(data, out);
+                }
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                writes.incrementAndGet();
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("写入压缩缓存失败：{}", file, e);
+        }
+    }
+
+    /**
+     * 将文件流式压缩后保存，用于不适合读入内存的大文件，写入失败时只记录日志，不影响压缩
+     *
+     * @param key   缓存键
+     * @param file  文件
+     * @param level 压缩级别
+     * @return 缓存条目，写入失败时返回null
+     */
+    public Entry deflate(String key, File file, int level) {
+        final File target = fileOf(key);
+        try {
+            FileUtil.mkParentDirs(target);
+            final File tempFile = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            try {
+                final CRC32 crc = new CRC32();
+                final Deflater deflater = ZlibPool.deflater(level, true);
+                final long size;
+                try (InputStream in = new CheckedInputStream(IoUtil.toStream(file), crc);
+                     OutputStream out = FileUtil.getOutputStream(tempFile)) {
+                    // 文件头在压缩完成后回填
+                    out.write(new byte[HEADER_SIZE]);
+                    final DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater, IoUtil.MAX_BUFFER_SIZE);
+                    size = IoUtil.copy(in, dos, IoUtil.MAX_BUFFER_SIZE);
+                    dos.finish();
+                } finally {
+                    ZlibPool.release(deflater, level, true);
+                }
+                try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+                    raf.writeInt(MAGIC);
+                    raf.writeLong(size);
+                    raf.writeLong(crc.getValue());
+                }
+                Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                writes.incrementAndGet();
+                return new Entry(target, size, crc.getValue(), target.length() - HEADER_SIZE);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("写入压缩缓存失败：{}", target, e);
+            return null;
+        }
+    }
+
+    /**
+     * 按修改时间淘汰最久未使用的条目，直到缓存总大小不超过上限
+     */
+    public void trim() {
+        final File[] buckets = dir.listFiles(File::isDirectory);
+        if (null == buckets) {
+            return;
+        }
+        final List<File> files = new ArrayList<>();
+        long total = 0;
+        for (File bucket : buckets) {
+            final File[] children = bucket.listFiles((d, name) -> name.endsWith(EXT));
+            if (null == children) {
+                continue;
+            }
+            for (File file : children) {
+                files.add(file);
+                total += file.length();
+            }
+        }
+        if (total <= maxSize) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxSize) {
+                break;
+            }
+            final long length = file.length();
+            // 其他构建可能同时淘汰，删除失败的文件不计入
+            if (file.delete()) {
+                total -= length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return 命中的条目数
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return 未命中的条目数
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 命中、未命中、写入及淘汰的统计
+     *
+     * @return 统计
+     */
+    public String stats() {
+        return String.format("命中%d个（%.1fMB免压缩），未命中%d个，写入%d个，淘汰%d个",
+                hits.get(), hitBytes.get() / 1024.0 / 1024.0, misses.get(), writes.get(), evictions.get());
+    }
+
+    private File fileOf(String key) {
+        return new File(new File(dir, key.substring(0, 2)), key + EXT);
+    }
+
+    /**
+     * 缓存条目
+     */
+    public static class Entry {
+        private final File file;
+        private final long size;
+        private final long crc;
+        private final long compressedSize;
+
+        Entry(File file, long size, long crc, long compressedSize) {
+            this.file = file;
+            this.size = size;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+        }
+
+        /**
+         * @return 原始大小
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return 原始数据的CRC
+         */
+        public long getCrc() {
+            return crc;
+        }
+
+        /**
+         * @return 原始deflate数据的大小
+         */
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        /**
+         * 打开原始deflate数据
+         *
+         * @return 输入流，已跳过文件头
+         * @throws NoSuchFileException 缓存文件已被淘汰
+         * @throws IOException         IO异常
+         */
+        public InputStream open() throws IOException {
+            final DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()));
+            try {
+                in.readFully(new byte[HEADER_SIZE]);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            return in;
+        }
+    }
+}
@@ -4,6 +4,11 @@ import org.springframework.util.Assert;
 import org.springframework.util.FastByteArrayOutputStream;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 public class IoUtil {
 
@@ -20,6 +25,23 @@ public class IoUtil {
      * 默认大缓存大小
      */
     public static final int DEFAULT_LARGE_BUFFER_SIZE = 8192;
+    /**
+     * 自适应缓存的最大值
+     */
+    public static final int MAX_BUFFER_SIZE = 256 * 1024;
+    /**
+     * 文件通道单次transferTo传输的最大字节数，同时决定进度回调的粒度
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * 每个线程缓存一个拷贝用的byte数组，避免每次拷贝都重新分配
+     */
+    private static final ThreadLocal<byte[]> BUFFER_CACHE = new ThreadLocal<>();
+    /**
+     * 每个线程缓存一个通道拷贝用的直接内存缓冲区
+     */
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER_CACHE = new ThreadLocal<>();
 
     /**
      * 数据流末尾
@@ -79,7 +101,9 @@ public class IoUtil {
     }
 
     /**
-     * 拷贝流
+     * 拷贝流<br>
+     * 输入输出均为文件流时使用{@link FileChannel#transferTo(long, long, WritableByteChannel)}零拷贝传输，
+     * 否则使用线程内复用的缓存拷贝，拷贝结束后只flush一次
      *
      * @param in             输入流
      * @param out            输出流
@@ -90,26 +114,175 @@ public class IoUtil {
     public static long copy(InputStream in, OutputStream out, int bufferSize, StreamProgress streamProgress) {
         Assert.notNull(in, "InputStream is null !");
         Assert.notNull(out, "OutputStream is null !");
+        if (in instanceof FileInputStream && out instanceof FileOutputStream) {
+            return copy(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel(), streamProgress);
+        }
         if (bufferSize <= 0) {
             bufferSize = DEFAULT_BUFFER_SIZE;
         }
 
-        byte[] buffer = new byte[bufferSize];
+        byte[] buffer = acquireBuffer(bufferSize);
         if (null != streamProgress) {
             streamProgress.start();
         }
         long size = 0;
         try {
-            for (int readSize = -1; (readSize = in.read(buffer)) != EOF; ) {
+            for (int readSize = -1; (readSize = in.read(buffer, 0, bufferSize)) != EOF; ) {
                 out.write(buffer, 0, readSize);
                 size += readSize;
-                out.flush();
+                if (null != streamProgress) {
+                    streamProgress.progress(size);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            releaseBuffer(buffer);
+        }
+        if (null != streamProgress) {
+            streamProgress.finish();
+        }
+        return size;
+    }
+
+    /**
+     * 拷贝文件内容到流中，缓存大小按文件大小自适应
+     *
+     * @param file 文件
+     * @param out  输出流
+     * @return 传输的byte数
+     */
+    public static long copy(File file, OutputStream out) {
+        return copy(file, out, null);
+    }
+
+    /**
+     * 拷贝文件内容到流中，缓存大小按文件大小自适应
+     *
+     * @param file           文件
+     * @param out            输出流
+     * @param streamProgress 进度条
+     * @return 传输的byte数
+     */
+    public static long copy(File file, OutputStream out, StreamProgress streamProgress) {
+        try (FileInputStream in = toStream(file)) {
+            return copy(in, out, bufferSize(file.length()), streamProgress);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 拷贝文件，使用{@link FileChannel#transferTo(long, long, WritableByteChannel)}，数据不经过用户态缓存
+     *
+     * @param src  源文件
+     * @param dest 目标文件，不存在时自动创建，存在时覆盖
+     * @return 传输的byte数
+     */
+    public static long copy(File src, File dest) {
+        return copy(src, dest, null);
+    }
+
+    /**
+     * 拷贝文件，使用{@link FileChannel#transferTo(long, long, WritableByteChannel)}，数据不经过用户态缓存
+     *
+     * @param src            源文件
+     * @param dest           目标文件，不存在时自动创建，存在时覆盖
+     * @param streamProgress 进度条
+     * @return 传输的byte数
+     */
+    public static long copy(File src, File dest, StreamProgress streamProgress) {
+        FileUtil.mkParentDirs(dest);
+        try (FileChannel in = FileChannel.open(src.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return copy(in, out, streamProgress);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 拷贝文件通道，从输入通道的当前位置读到末尾
+     *
+     * @param in             输入通道
+     * @param out            输出通道
+     * @param streamProgress 进度条
+     * @return 传输的byte数
+     */
+    public static long copy(FileChannel in, WritableByteChannel out, StreamProgress streamProgress) {
+        Assert.notNull(in, "In channel is null !");
+        Assert.notNull(out, "Out channel is null !");
+        if (null != streamProgress) {
+            streamProgress.start();
+        }
+        long size = 0;
+        try {
+            long position = in.position();
+            final long end = in.size();
+            while (position < end) {
+                final long transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, end - position), out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                size += transferred;
+                if (null != streamProgress) {
+                    streamProgress.progress(size);
+                }
+            }
+            in.position(position);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (null != streamProgress) {
+            streamProgress.finish();
+        }
+        return size;
+    }
+
+    /**
+     * 拷贝通道，使用线程内复用的直接内存缓冲区
+     *
+     * @param in             输入通道
+     * @param out            输出通道
+     * @param streamProgress 进度条
+     * @return 传输的byte数
+     */
+    public static long copy(ReadableByteChannel in, WritableByteChannel out, StreamProgress streamProgress) {
+        if (in instanceof FileChannel) {
+            return copy((FileChannel) in, out, streamProgress);
+        }
+        Assert.notNull(in, "In channel is null !");
+        Assert.notNull(out, "Out channel is null !");
+        ByteBuffer buffer = DIRECT_BUFFER_CACHE.get();
+        if (null == buffer) {
+            buffer = ByteBuffer.allocateDirect(MAX_BUFFER_SIZE);
+        } else {
+            DIRECT_BUFFER_CACHE.remove();
+        }
+        if (null != streamProgress) {
+            streamProgress.start();
+        }
+        long size = 0;
+        try {
+            buffer.clear();
+            for (int readSize; (readSize = in.read(buffer)) != EOF; ) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+                size += readSize;
                 if (null != streamProgress) {
                     streamProgress.progress(size);
                 }
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            DIRECT_BUFFER_CACHE.set(buffer);
         }
         if (null != streamProgress) {
             streamProgress.finish();
@@ -117,6 +290,46 @@ public class IoUtil {
         return size;
     }
 
+    /**
+     * 根据待拷贝数据的大小计算缓存大小，取不小于数据大小的2的幂，范围为{@link #DEFAULT_MIDDLE_BUFFER_SIZE}到{@link #MAX_BUFFER_SIZE}
+     *
+     * @param length 数据大小，未知时传入小于0的值
+     * @return 缓存大小
+     */
+    public static int bufferSize(long length) {
+        if (length < 0) {
+            return DEFAULT_LARGE_BUFFER_SIZE;
+        }
+        if (length >= MAX_BUFFER_SIZE) {
+            return MAX_BUFFER_SIZE;
+        }
+        return Math.max(DEFAULT_MIDDLE_BUFFER_SIZE, Integer.highestOneBit((int) Math.max(1, length - 1)) << 1);
+    }
+
+    /**
+     * 取出当前线程缓存的byte数组，大小不足或已被占用时重新分配
+     */
+    private static byte[] acquireBuffer(int size) {
+        final byte[] cached = BUFFER_CACHE.get();
+        if (null != cached && cached.length >= size) {
+            BUFFER_CACHE.remove();
+            return cached;
+        }
+        return new byte[size];
+    }
+
+    /**
+     * 归还byte数组，只缓存不超过{@link #MAX_BUFFER_SIZE}的数组
+     */
+    private static void releaseBuffer(byte[] buffer) {
+        if (buffer.length <= MAX_BUFFER_SIZE) {
+            final byte[] cached = BUFFER_CACHE.get();
+            if (null == cached || cached.length < buffer.length) {
+                BUFFER_CACHE.set(buffer);
+            }
+        }
+    }
+
     /**
      * 文件转为流
      *
@@ -131,7 +344,10 @@ public class IoUtil {
         }
     }
 
-    interface StreamProgress {
+    /**
+     * 拷贝进度回调
+     */
+    public interface StreamProgress {
 
         /**
          * 开始
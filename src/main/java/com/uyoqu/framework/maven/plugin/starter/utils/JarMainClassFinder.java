@@ -0,0 +1,290 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 在依赖jar中查找启动类<br>
+ * 只读取jar的压缩包目录（见{@link ZipIndex}），先按条目名称筛选候选类，再读取候选类的数据；多个jar并行扫描。<br>
+ * 每个jar中带有main方法的类及其注解以jar的目录摘要（{@link ZipIndex#checksum()}）为键缓存在磁盘上，
+ * 内容未变化的jar不会再次读取class数据，缓存可在多个工程及多次构建间共享。<br>
+ * 同一进程内（如mvn -T并行构建的多个模块）扫描结果另外保存在内存中，各模块的查找器共用，同一jar只扫描一次，
+ * 内存中同样最多保留{@link #MAX_JARS}个jar，超过时丢弃最久未使用的jar。
+ * <pre>
+ * 缓存文件（UTF-8，每行以TAB分隔，最近使用的jar在前）：
+ * #bin-jar-index	版本
+ * jar目录摘要	类名	注解（逗号分隔）
+ * jar目录摘要		            （jar中没有main方法时只有一行占位）
+ * </pre>
+ */
+public class JarMainClassFinder {
+
+    /**
+     * 缓存文件及进程内共享结果各自保留的jar数量上限，超过时丢弃最久未使用的jar
+     */
+    public static final int MAX_JARS = 4096;
+
+    private static final String HEADER = "#bin-jar-index";
+
+    private static final String VERSION = "1";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String LIST_SEPARATOR = ",";
+
+    private static final String DOT_CLASS = ".class";
+
+    /**
+     * 进程内共享的扫描结果，jar目录摘要 -> jar中带有main方法的类，按最近使用排序
+     */
+    private static final Map<String, List<MainClass>> SHARED = new LinkedHashMap<String, List<MainClass>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<MainClass>> eldest) {
+            return size() > MAX_JARS;
+        }
+    };
+
+    private final File cacheFile;
+
+    /**
+     * jar目录摘要 -> jar中带有main方法的类，按最近使用排序
+     */
+    private final Map<String, List<MainClass>> cache = new LinkedHashMap<>();
+
+    /**
+     * 本次查找中使用过的jar
+     */
+    private final Map<String, List<MainClass>> used = new ConcurrentHashMap<>();
+
+    private final AtomicInteger scannedCount = new AtomicInteger();
+
+    private JarMainClassFinder(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * 加载缓存文件，文件不存在、版本不一致或损坏时返回空缓存
+     *
+     * @param cacheFile 缓存文件
+     * @return 查找器
+     */
+    public static JarMainClassFinder load(File cacheFile) {
+        final JarMainClassFinder finder = new JarMainClassFinder(cacheFile);
+        if (false == cacheFile.isFile()) {
+            return finder;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(FileUtil.getInputStream(cacheFile), StandardCharsets.UTF_8))) {
+            final String header = reader.readLine();
+            if (false == (HEADER + SEPARATOR + VERSION).equals(header)) {
+                return finder;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] columns = line.split(SEPARATOR, -1);
+                if (columns.length != 3) {
+                    throw new IOException("缓存行格式错误:" + line);
+                }
+                final List<MainClass> classes = finder.cache.computeIfAbsent(columns[0], k -> new ArrayList<>());
+                if (false == columns[1].isEmpty()) {
+                    classes.add(new MainClass(columns[1], columns[2].isEmpty()
+                            ? Collections.emptyList() : Arrays.asList(columns[2].split(LIST_SEPARATOR))));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            finder.cache.clear();
+        }
+        return finder;
+    }
+
+    /**
+     * 清空进程内共享的扫描结果
+     */
+    public static void clearShared() {
+        synchronized (SHARED) {
+            SHARED.clear();
+        }
+    }
+
+    /**
+     * 在jar中查找有main方法且带有指定注解的类
+     *
+     * @param jars           jar文件
+     * @param annotationName 注解类名，如org.springframework.boot.autoconfigure.SpringBootApplication
+     * @return 类名，按类名排序
+     */
+    public List<String> findMainClasses(Collection<File> jars, String annotationName) {
+        final String annotation = annotationName.replace('.', '/');
+        return jars.parallelStream()
+                .flatMap(jar -> mainClassesOf(jar).stream())
+                .filter(mainClass -> mainClass.annotations.contains(annotation))
+                .map(mainClass -> mainClass.name.replace('/', '.'))
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 在jar中查找类名包含matchClass的类，只按压缩包目录中的条目名称匹配，不读取class数据
+     *
+     * @param jars       jar文件
+     * @param matchClass 匹配的类名片段
+     * @return 类名，按类名排序
+     */
+    public List<String> findMatchClasses(Collection<File> jars, String matchClass) {
+        return jars.parallelStream()
+                .flatMap(jar -> ZipIndex.open(jar, StandardCharsets.UTF_8).names().stream())
+                .filter(JarMainClassFinder::isCandidate)
+                .map(name -> name.substring(0, name.length() - DOT_CLASS.length()))
+                .filter(name -> name.contains(matchClass))
+                .map(name -> name.replace('/', '.'))
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 保存缓存，本次使用过的jar排在前面，其次是同一进程内其他模块扫描过的jar，超过{@link #MAX_JARS}时丢弃最久未使用的jar。
+     * 先写入临时文件再替换，多个构建同时写入时以最后完成的为准
+     */
+    public void save() {
+        final Map<String, List<MainClass>> merged = new LinkedHashMap<>(used);
+        final List<Map.Entry<String, List<MainClass>>> shared;
+        synchronized (SHARED) {
+            shared = new ArrayList<>(SHARED.entrySet());
+        }
+        // 共享结果按最近使用排序，最近使用的在末尾
+        Collections.reverse(shared);
+        for (Map.Entry<String, List<MainClass>> entry : shared) {
+            if (merged.size() >= MAX_JARS) {
+                break;
+            }
+            merged.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, List<MainClass>> entry : cache.entrySet()) {
+            if (merged.size() >= MAX_JARS) {
+                break;
+            }
+            merged.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        try {
+            FileUtil.mkParentDirs(cacheFile);
+            final File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+            try (BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(FileUtil.getOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                writer.write(HEADER + SEPARATOR + VERSION);
+                writer.newLine();
+                for (Map.Entry<String, List<MainClass>> entry : merged.entrySet()) {
+                    if (entry.getValue().isEmpty()) {
+                        writer.write(entry.getKey() + SEPARATOR + SEPARATOR);
+                        writer.newLine();
+                    }
+                    for (MainClass mainClass : entry.getValue()) {
+                        writer.write(entry.getKey() + SEPARATOR + mainClass.name
+                                + SEPARATOR + String.join(LIST_SEPARATOR, mainClass.annotations));
+                        writer.newLine();
+                    }
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return 本次查找中读取了class数据的jar数，其余jar命中缓存
+     */
+    public int getScannedCount() {
+        return scannedCount.get();
+    }
+
+    /**
+     * 获取jar中带有main方法的类，jar目录摘要命中缓存时不读取class数据
+     */
+    private List<MainClass> mainClassesOf(File jar) {
+        final ZipIndex index = ZipIndex.open(jar, StandardCharsets.UTF_8);
+        final String checksum = index.checksum();
+        List<MainClass> classes = used.get(checksum);
+        if (null == classes) {
+            classes = cache.get(checksum);
+        }
+        if (null == classes) {
+            synchronized (SHARED) {
+                classes = SHARED.get(checksum);
+            }
+        }
+        if (null == classes) {
+            // 不在扫描期间持有锁，多个模块同时扫描同一jar时以先完成的结果为准
+            final List<MainClass> scanned = scan(index);
+            synchronized (SHARED) {
+                classes = SHARED.putIfAbsent(checksum, scanned);
+            }
+            if (null == classes) {
+                classes = scanned;
+            }
+        }
+        used.put(checksum, classes);
+        return classes;
+    }
+
+    /**
+     * 读取jar中候选类的数据，找出带有main方法的类
+     */
+    private List<MainClass> scan(ZipIndex index) {
+        scannedCount.incrementAndGet();
+        final List<MainClass> classes = new ArrayList<>();
+        for (String name : index.names()) {
+            if (false == isCandidate(name)) {
+                continue;
+            }
+            final ClassIndex.ClassInfo info = ClassIndex.parse(name, index.read(name));
+            if (info.hasMain()) {
+                classes.add(new MainClass(info.getName(), info.getAnnotations()));
+            }
+        }
+        return Collections.unmodifiableList(classes);
+    }
+
+    /**
+     * 按条目名称筛选候选类：排除目录、非class文件、META-INF下的class（含META-INF/versions下的多版本class）、
+     * module-info及package-info
+     */
+    static boolean isCandidate(String name) {
+        final String simpleName = name.substring(name.lastIndexOf('/') + 1);
+        return name.endsWith(DOT_CLASS)
+                && false == name.startsWith("META-INF/")
+                && false == "module-info.class".equals(simpleName)
+                && false == "package-info.class".equals(simpleName);
+    }
+
+    /**
+     * jar中带有main方法的类
+     */
+    private static class MainClass {
+        private final String name;
+        private final List<String> annotations;
+
+        MainClass(String name, List<String> annotations) {
+            this.name = name;
+            this.annotations = annotations;
+        }
+    }
+}
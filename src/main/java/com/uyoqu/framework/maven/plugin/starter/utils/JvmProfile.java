@@ -0,0 +1,280 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JVM参数模板<br>
+ * 按名称选择堆、GC、元空间及代码缓存参数，构建时按目标JDK版本校验并生成启动脚本中的JAVA_MEM_OPTS：
+ * <ul>
+ *     <li>throughput-g1：G1，兼顾吞吐与停顿，JDK 8及以上，默认模板</li>
+ *     <li>low-latency-zgc：ZGC，亚毫秒级停顿，JDK 11及以上，11~14为实验特性，21、22开启分代模式</li>
+ *     <li>shenandoah：Shenandoah，低停顿，JDK 12及以上，12~14为实验特性，Oracle JDK不包含该GC</li>
+ *     <li>small-heap-serial：Serial，适合小堆及单核容器</li>
+ *     <li>batch-parallel：Parallel，吞吐优先，适合批处理任务</li>
+ *     <li>legacy-cms：原jvms.txt中的CMS参数，只支持JDK 8</li>
+ * </ul>
+ * 生成的脚本片段将各类参数分别放在JAVA_HEAP_OPTS、JAVA_META_OPTS、JAVA_GC_OPTS中，再合并为JAVA_MEM_OPTS。
+ */
+public class JvmProfile {
+
+    /**
+     * 默认模板
+     */
+    public static final String DEFAULT = "throughput-g1";
+
+    private static final Pattern JDK_VERSION = Pattern.compile("^(\\d+)(?:\\.(\\d+))?");
+
+    private static final Map<String, JvmProfile> PROFILES = new LinkedHashMap<>();
+
+    static {
+        register(new JvmProfile(DEFAULT, 8, 0, "1024m", "128m", "512m", "240m"));
+        register(new JvmProfile("low-latency-zgc", 11, 0, "2048m", "128m", "512m", "240m"));
+        register(new JvmProfile("shenandoah", 12, 0, "1024m", "128m", "512m", "240m"));
+        register(new JvmProfile("small-heap-serial", 8, 0, "256m", "64m", "256m", "64m"));
+        register(new JvmProfile("batch-parallel", 8, 0, "1024m", "128m", "512m", "240m"));
+        register(new JvmProfile("legacy-cms", 8, 8, "1024m", "512m", "512m", null));
+    }
+
+    private final String name;
+
+    private final int minJdk;
+
+    private final int maxJdk;
+
+    private String heap;
+
+    private String metaspaceSize;
+
+    private String maxMetaspaceSize;
+
+    private String reservedCodeCacheSize;
+
+    private String initialCodeCacheSize;
+
+    private JvmProfile(String name, int minJdk, int maxJdk, String heap,
+                       String metaspaceSize, String maxMetaspaceSize, String reservedCodeCacheSize) {
+        this.name = name;
+        this.minJdk = minJdk;
+        this.maxJdk = maxJdk;
+        this.heap = heap;
+        this.metaspaceSize = metaspaceSize;
+        this.maxMetaspaceSize = maxMetaspaceSize;
+        this.reservedCodeCacheSize = reservedCodeCacheSize;
+    }
+
+    private static void register(JvmProfile profile) {
+        PROFILES.put(profile.name, profile);
+    }
+
+    /**
+     * 按名称获取模板，每次返回新的实例，可单独修改其中的参数
+     *
+     * @param name 模板名称，不区分大小写
+     * @return 模板
+     * @throws IllegalArgumentException 模板不存在
+     */
+    public static JvmProfile of(String name) {
+        final JvmProfile profile = PROFILES.get(StringUtils.lowerCase(StringUtils.trim(name)));
+        if (null == profile) {
+            throw new IllegalArgumentException("不支持的JVM参数模板:" + name + "，可选值为" + String.join("、", names()));
+        }
+        final JvmProfile copy = new JvmProfile(profile.name, profile.minJdk, profile.maxJdk, profile.heap,
+                profile.metaspaceSize, profile.maxMetaspaceSize, profile.reservedCodeCacheSize);
+        copy.initialCodeCacheSize = profile.initialCodeCacheSize;
+        return copy;
+    }
+
+    /**
+     * @return 全部模板名称
+     */
+    public static List<String> names() {
+        return Collections.unmodifiableList(new ArrayList<>(PROFILES.keySet()));
+    }
+
+    /**
+     * 解析JDK版本号，1.8解析为8，17.0.2解析为17
+     *
+     * @param version 版本号
+     * @return 主版本号，无法解析时为0
+     */
+    public static int parseJdk(String version) {
+        if (StringUtils.isBlank(version)) {
+            return 0;
+        }
+        final Matcher matcher = JDK_VERSION.matcher(version.trim());
+        if (false == matcher.find()) {
+            return 0;
+        }
+        final int major = Integer.parseInt(matcher.group(1));
+        return major == 1 && null != matcher.group(2) ? Integer.parseInt(matcher.group(2)) : major;
+    }
+
+    /**
+     * 校验模板是否支持目标JDK
+     *
+     * @param jdk 目标JDK主版本号
+     * @throws IllegalArgumentException 不支持
+     */
+    public void validate(int jdk) {
+        if (jdk < minJdk) {
+            throw new IllegalArgumentException(String.format("JVM参数模板%s需JDK %d及以上，目标JDK为%d", name, minJdk, jdk));
+        }
+        if (maxJdk > 0 && jdk > maxJdk) {
+            throw new IllegalArgumentException(String.format("JVM参数模板%s中的参数在JDK %d以上已移除，目标JDK为%d", name, maxJdk, jdk));
+        }
+    }
+
+    /**
+     * 生成启动脚本片段，生成前先校验目标JDK
+     *
+     * @param jdk 目标JDK主版本号
+     * @return 设置JAVA_MEM_OPTS的脚本片段
+     * @throws IllegalArgumentException 不支持目标JDK
+     */
+    public String render(int jdk) {
+        return render(jdk, null);
+    }
+
+    /**
+     * 生成启动脚本片段，生成前先校验目标JDK
+     *
+     * @param jdk    目标JDK主版本号
+     * @param sizing 按容器限制计算参数的脚本片段（见{@link ContainerSizing}），插入在JAVA_MEM_OPTS之前，可以为null
+     * @return 设置JAVA_MEM_OPTS的脚本片段
+     * @throws IllegalArgumentException 不支持目标JDK
+     */
+    public String render(int jdk, String sizing) {
+        validate(jdk);
+        final List<String> meta = new ArrayList<>();
+        addSize(meta, "-XX:MetaspaceSize=", metaspaceSize);
+        addSize(meta, "-XX:MaxMetaspaceSize=", maxMetaspaceSize);
+        addSize(meta, "-XX:ReservedCodeCacheSize=", reservedCodeCacheSize);
+        addSize(meta, "-XX:InitialCodeCacheSize=", initialCodeCacheSize);
+        final List<String> common = Arrays.asList("-server", "-Xss512k", "-XX:+HeapDumpOnOutOfMemoryError");
+        final StringBuilder script = new StringBuilder()
+                .append("JAVA_HEAP_OPTS=\"-Xms").append(heap).append(" -Xmx").append(heap).append("\"\n")
+                .append("JAVA_META_OPTS=\"").append(String.join(" ", meta)).append("\"\n")
+                .append("JAVA_GC_OPTS=\"").append(String.join(" ", gcOptions(jdk))).append("\"\n");
+        if (StringUtils.isNotBlank(sizing)) {
+            script.append(sizing).append("\n")
+                    .append("JAVA_MEM_OPTS=\"").append(String.join(" ", common))
+                    .append(" $JAVA_HEAP_OPTS $JAVA_META_OPTS $JAVA_GC_OPTS $JAVA_SIZING_OPTS\"");
+        } else {
+            script.append("JAVA_MEM_OPTS=\"").append(String.join(" ", common))
+                    .append(" $JAVA_HEAP_OPTS $JAVA_META_OPTS $JAVA_GC_OPTS\"");
+        }
+        return script.toString();
+    }
+
+    private List<String> gcOptions(int jdk) {
+        final List<String> options = new ArrayList<>();
+        switch (name) {
+            case "low-latency-zgc":
+                if (jdk < 15) {
+                    options.add("-XX:+UnlockExperimentalVMOptions");
+                }
+                options.add("-XX:+UseZGC");
+                // JDK 21、22中分代ZGC需显式开启，23起为默认，24起不再支持非分代模式
+                if (jdk == 21 || jdk == 22) {
+                    options.add("-XX:+ZGenerational");
+                }
+                break;
+            case "shenandoah":
+                if (jdk < 15) {
+                    options.add("-XX:+UnlockExperimentalVMOptions");
+                }
+                options.add("-XX:+UseShenandoahGC");
+                break;
+            case "small-heap-serial":
+                options.add("-XX:+UseSerialGC");
+                break;
+            case "batch-parallel":
+                options.add("-XX:+UseParallelGC");
+                break;
+            case "legacy-cms":
+                options.addAll(Arrays.asList("-Xmn256M", "-XX:+DisableExplicitGC", "-XX:+UseConcMarkSweepGC",
+                        "-XX:+CMSParallelRemarkEnabled", "-XX:LargePageSizeInBytes=128m", "-XX:+UseFastAccessorMethods",
+                        "-XX:+UseCMSInitiatingOccupancyOnly", "-XX:CMSInitiatingOccupancyFraction=70"));
+                break;
+            default:
+                // System.gc()以并发周期执行，不再触发Full GC
+                options.addAll(Arrays.asList("-XX:+UseG1GC", "-XX:MaxGCPauseMillis=200",
+                        "-XX:+ParallelRefProcEnabled", "-XX:+ExplicitGCInvokesConcurrent"));
+                break;
+        }
+        return options;
+    }
+
+    private static void addSize(List<String> options, String option, String size) {
+        if (StringUtils.isNotBlank(size)) {
+            options.add(option + size);
+        }
+    }
+
+    /**
+     * @return 模板名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 触发元空间GC的初始阈值
+     */
+    public String getMetaspaceSize() {
+        return metaspaceSize;
+    }
+
+    /**
+     * @return 元空间上限
+     */
+    public String getMaxMetaspaceSize() {
+        return maxMetaspaceSize;
+    }
+
+    /**
+     * 设置堆大小，-Xms与-Xmx相同
+     *
+     * @param heap 堆大小，如1024m
+     * @return this
+     */
+    public JvmProfile setHeap(String heap) {
+        this.heap = heap;
+        return this;
+    }
+
+    /**
+     * 设置元空间大小
+     *
+     * @param metaspaceSize    触发元空间GC的初始阈值，为空时不设置
+     * @param maxMetaspaceSize 元空间上限，为空时不设置
+     * @return this
+     */
+    public JvmProfile setMetaspace(String metaspaceSize, String maxMetaspaceSize) {
+        this.metaspaceSize = metaspaceSize;
+        this.maxMetaspaceSize = maxMetaspaceSize;
+        return this;
+    }
+
+    /**
+     * 设置代码缓存大小
+     *
+     * @param reservedCodeCacheSize 代码缓存上限，为空时不设置
+     * @param initialCodeCacheSize  代码缓存初始大小，为空时不设置
+     * @return this
+     */
+    public JvmProfile setCodeCache(String reservedCodeCacheSize, String initialCodeCacheSize) {
+        this.reservedCodeCacheSize = reservedCodeCacheSize;
+        this.initialCodeCacheSize = initialCodeCacheSize;
+        return this;
+    }
+}
@@ -0,0 +1,283 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.compress.utils.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 多线程解压器<br>
+ * 由调用线程按条目顺序解析目标路径并创建目录，文件内容交给线程池写出。<br>
+ * 防止slip漏洞（见http://blog.nsfocus.net/zip-slip-2/）：条目路径规范化后必须位于解压目录内，
+ * 每个父目录只在第一次出现时创建并取一次真实路径校验，之后直接命中缓存，不再对每个条目做canonical路径的系统调用。<br>
+ * 从顺序流中解压时，小文件读入内存后异步写出，暂存数据总量受内存预算限制，大文件直接在调用线程中写出。
+ */
+public class ParallelExtractor implements Closeable {
+
+    /**
+     * 默认内存预算，64MB
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * 内存预算以KB为单位折算成信号量许可
+     */
+    private static final int PERMIT_UNIT = 1024;
+
+    /**
+     * 每个线程对应的在途写出任务数
+     */
+    private static final int PENDING_PER_THREAD = 64;
+
+    private final Path root;
+
+    private final Path realRoot;
+
+    private final ExecutorService executor;
+
+    private final Semaphore budget;
+
+    private final int totalPermits;
+
+    private final long maxPooledSize;
+
+    private final Semaphore tasks;
+
+    private final int maxTasks;
+
+    /**
+     * 已创建并校验过的目录
+     */
+    private final Set<Path> dirs = new HashSet<>();
+
+    /**
+     * 已写出的文件，同一路径再次出现时先等待之前的写出完成，保证后出现的条目覆盖先出现的
+     */
+    private final Set<Path> files = new HashSet<>();
+
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    /**
+     * 已关闭，线程池为共享线程池（见{@link SharedExecutors}），关闭后尚未开始的写出任务直接跳过
+     */
+    private volatile boolean closed;
+
+    /**
+     * 构造
+     *
+     * @param root         解压目录，不存在时创建
+     * @param threads      写出线程数，小于等于0时使用CPU核数
+     * @param memoryBudget 从顺序流中解压时暂存数据的内存预算，单位byte
+     * @throws IOException IO异常
+     */
+    public ParallelExtractor(File root, int threads, long memoryBudget) throws IOException {
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.root = root.toPath().toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+        this.realRoot = this.root.toRealPath();
+        this.dirs.add(this.root);
+        this.totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / PERMIT_UNIT));
+        this.budget = new Semaphore(totalPermits);
+        this.maxPooledSize = Math.max(PERMIT_UNIT, memoryBudget / poolSize);
+        this.maxTasks = poolSize * PENDING_PER_THREAD;
+        this.tasks = new Semaphore(maxTasks);
+        this.executor = SharedExecutors.get("bin-unzip", poolSize);
+    }
+
+    /**
+     * 创建目录条目
+     *
+     * @param name 条目名称
+     * @return 目录
+     * @throws IOException IO异常
+     */
+    public File mkdirs(String name) throws IOException {
+        final Path dir = normalize(name);
+        ensureDir(dir);
+        return dir.toFile();
+    }
+
+    /**
+     * 解析文件条目的目标文件并创建其父目录
+     *
+     * @param name 条目名称
+     * @return 目标文件
+     * @throws IOException              IO异常
+     * @throws IllegalArgumentException 目标文件不在解压目录中
+     */
+    public File resolve(String name) throws IOException {
+        final Path file = normalize(name);
+        ensureDir(file.getParent());
+        if (Files.isSymbolicLink(file)) {
+            // 已存在的符号链接会把写入重定向到链接目标，需校验真实路径
+            checkInside(file.toRealPath(), name);
+        }
+        if (false == files.add(file)) {
+            await();
+        }
+        return file.toFile();
+    }
+
+    /**
+     * 异步写出可重复打开的数据，例如随机读取的压缩包中的条目
+     *
+     * @param target 目标文件
+     * @param source 数据
+     * @param size   数据大小，未知时为-1
+     * @throws IOException 之前的写出任务失败
+     */
+    public void write(File target, StreamSource source, long size) throws IOException {
+        submit(() -> {
+            try (InputStream in = source.open()) {
+                copy(in, target, size);
+            }
+        }, 0);
+    }
+
+    /**
+     * 写出顺序流中的当前条目，不关闭输入流<br>
+     * 大小已知且不超过单线程份额的条目读入内存后异步写出，其余直接在调用线程中写出
+     *
+     * @param target     目标文件
+     * @param in         输入流，读取到当前条目末尾
+     * @param size       条目大小，未知时为-1
+     * @param executable 是否设置为可执行
+     * @throws IOException IO异常
+     */
+    public void write(File target, InputStream in, long size, boolean executable) throws IOException {
+        if (size < 0 || size > maxPooledSize) {
+            copy(in, target, size);
+            setExecutable(target, executable);
+            return;
+        }
+        final byte[] data = new byte[(int) size];
+        IOUtils.readFully(in, data);
+        final int permits = (int) Math.min(totalPermits, Math.max(1, (size + PERMIT_UNIT - 1) / PERMIT_UNIT));
+        budget.acquireUninterruptibly(permits);
+        submit(() -> {
+            try (OutputStream out = new FileOutputStream(target)) {
+                out.write(data);
+            }
+            setExecutable(target, executable);
+        }, permits);
+    }
+
+    /**
+     * 等待所有写出任务完成
+     *
+     * @throws IOException 写出任务失败
+     */
+    public void finish() throws IOException {
+        await();
+    }
+
+    /**
+     * 跳过尚未开始的写出任务并等待正在写出的任务结束，不关闭共享线程池
+     */
+    @Override
+    public void close() {
+        closed = true;
+        tasks.acquireUninterruptibly(maxTasks);
+        tasks.release(maxTasks);
+    }
+
+    private Path normalize(String name) {
+        final Path path = root.resolve(name).normalize();
+        if (false == path.startsWith(root)) {
+            throw new IllegalArgumentException("New file is outside of the parent dir: " + name);
+        }
+        return path;
+    }
+
+    /**
+     * 创建目录并校验真实路径，每个目录只处理一次
+     */
+    private void ensureDir(Path dir) throws IOException {
+        if (dirs.contains(dir)) {
+            return;
+        }
+        if (false == Files.isDirectory(dir)) {
+            Files.createDirectories(dir);
+        }
+        // 真实路径解析符号链接，指向解压目录之外的目录链接在此被拒绝
+        checkInside(dir.toRealPath(), dir.toString());
+        dirs.add(dir);
+    }
+
+    private void checkInside(Path realPath, String name) {
+        if (false == realPath.startsWith(realRoot)) {
+            throw new IllegalArgumentException("New file is outside of the parent dir: " + name);
+        }
+    }
+
+    private void submit(final Task task, final int permits) throws IOException {
+        checkError();
+        tasks.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                if (false == closed) {
+                    task.run();
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            } finally {
+                budget.release(permits);
+                tasks.release();
+            }
+        });
+    }
+
+    private void await() throws IOException {
+        tasks.acquireUninterruptibly(maxTasks);
+        tasks.release(maxTasks);
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        final Throwable e = error.get();
+        if (null != e) {
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    private static void copy(InputStream in, File target, long size) throws IOException {
+        try (OutputStream out = new FileOutputStream(target)) {
+            IoUtil.copy(in, out, IoUtil.bufferSize(size));
+        }
+    }
+
+    private static void setExecutable(File target, boolean executable) {
+        if (executable) {
+            target.setExecutable(true, false);
+        }
+    }
+
+    /**
+     * 可重复打开的数据
+     */
+    public interface StreamSource {
+
+        /**
+         * 打开数据流
+         *
+         * @return 数据流
+         * @throws IOException IO异常
+         */
+        InputStream open() throws IOException;
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,234 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 多线程gzip输出流（pigz方式）<br>
+ * 数据按固定大小分块，每块在共享线程池（见{@link SharedExecutors}）中独立压缩为原始deflate数据，以前一块末尾32KB作为预设字典，
+ * 非末块以SYNC_FLUSH结束并按字节对齐，各块按顺序拼接后仍是一个标准的gzip流，gzip、tar xzf均可直接解压。<br>
+ * Deflater从{@link ZlibPool}借出，压缩输出缓存由每个压缩线程复用。<br>
+ * CRC在写入线程中计算，头部不写入文件名及修改时间，相同的输入得到相同的输出，与线程数无关。<br>
+ * 同时在途的块数为线程数的两倍，内存占用与数据总量无关。
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /**
+     * 默认分块大小，128KB
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    /**
+     * deflate窗口大小，即预设字典的长度
+     */
+    private static final int DICT_SIZE = 32 * 1024;
+
+    /**
+     * gzip头部：魔数、deflate方法、无标志位、修改时间为0、无额外标志、操作系统未知
+     */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /**
+     * 每个压缩线程缓存一个压缩输出缓存，不足时扩容，每块只按压缩后的大小拷贝一次
+     */
+    private static final ThreadLocal<byte[]> OUTPUT_BUFFER = new ThreadLocal<>();
+
+    private final OutputStream out;
+
+    private final int level;
+
+    private final int blockSize;
+
+    private final int maxPending;
+
+    private final ExecutorService executor;
+
+    private final CRC32 crc = new CRC32();
+
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] block;
+
+    private int count;
+
+    /**
+     * 上一块的末尾数据，作为下一块的预设字典
+     */
+    private byte[] dictionary;
+
+    private long size;
+
+    private boolean closed;
+
+    /**
+     * 构造，使用默认分块大小
+     *
+     * @param out     输出流
+     * @param level   压缩级别
+     * @param threads 压缩线程数，小于等于0时使用CPU核数
+     * @throws IOException IO异常
+     */
+    public ParallelGzipOutputStream(OutputStream out, int level, int threads) throws IOException {
+        this(out, level, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * 构造
+     *
+     * @param out       输出流
+     * @param level     压缩级别
+     * @param threads   压缩线程数，小于等于0时使用CPU核数
+     * @param blockSize 分块大小，不小于32KB
+     * @throws IOException IO异常
+     */
+    public ParallelGzipOutputStream(OutputStream out, int level, int threads, int blockSize) throws IOException {
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.out = out;
+        this.level = level;
+        this.blockSize = Math.max(DICT_SIZE, blockSize);
+        this.maxPending = poolSize * 2;
+        this.block = new byte[this.blockSize];
+        this.executor = SharedExecutors.get("bin-gzip", poolSize);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        crc.update(b, off, len);
+        size += len;
+        while (len > 0) {
+            final int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * 压缩剩余数据并写出gzip尾部，不关闭底层输出流
+     *
+     * @throws IOException IO异常
+     */
+    public void finish() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submit(true);
+            while (false == pending.isEmpty()) {
+                writeHead();
+            }
+            writeIntLE((int) crc.getValue());
+            writeIntLE((int) size);
+        } finally {
+            // 线程池为共享线程池，只取消本流尚未完成的块
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submit(final boolean last) throws IOException {
+        final byte[] data = block;
+        final int length = count;
+        final byte[] dict = dictionary;
+        if (length >= DICT_SIZE) {
+            dictionary = Arrays.copyOfRange(data, length - DICT_SIZE, length);
+        }
+        pending.add(executor.submit(() -> deflate(data, length, dict, last)));
+        block = new byte[blockSize];
+        count = 0;
+        while (pending.size() > maxPending || (false == pending.isEmpty() && pending.peek().isDone())) {
+            writeHead();
+        }
+    }
+
+    private void writeHead() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 将一块数据压缩为原始deflate数据，非末块以SYNC_FLUSH结束，末块以BFINAL结束
+     */
+    private byte[] deflate(byte[] data, int length, byte[] dict, boolean last) {
+        final Deflater deflater = ZlibPool.deflater(level, true);
+        try {
+            if (null != dict) {
+                deflater.setDictionary(dict);
+            }
+            deflater.setInput(data, 0, length);
+            // 不可压缩的数据以存储块输出，每64KB增加5字节，另加同步标记
+            byte[] buffer = OUTPUT_BUFFER.get();
+            if (null == buffer || buffer.length < length + 64) {
+                buffer = new byte[length + length / 1024 + 64];
+            }
+            int n = 0;
+            if (last) {
+                deflater.finish();
+                while (false == deflater.finished()) {
+                    if (n == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    n += deflater.deflate(buffer, n, buffer.length - n);
+                }
+            } else {
+                // 输出缓存被填满时可能还有未输出的数据，需继续flush
+                do {
+                    if (n == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    n += deflater.deflate(buffer, n, buffer.length - n, Deflater.SYNC_FLUSH);
+                } while (n == buffer.length);
+            }
+            OUTPUT_BUFFER.set(buffer);
+            return Arrays.copyOf(buffer, n);
+        } finally {
+            ZlibPool.release(deflater, level, true);
+        }
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
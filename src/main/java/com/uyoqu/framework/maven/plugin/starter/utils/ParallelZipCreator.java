@@ -0,0 +1,549 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * 多线程Zip压缩器<br>
+ * 每个条目在共享线程池（见{@link SharedExecutors}）中独立压缩为原始deflate数据，再由调用线程按添加顺序依次写入压缩包，
+ * 因此输出内容与线程数及调度顺序无关。<br>
+ * 暂存在内存中的压缩数据总量受内存预算限制，超过单线程份额的大文件不进入线程池，直接在调用线程中流式压缩写入。<br>
+ * 每个条目的存储方式及压缩级别由{@link CompressionPolicy}决定，STORED条目的CRC在读取文件的同一遍中计算。<br>
+ * 写出的条目按{@link org.apache.commons.compress.archivers.zip.Zip64Mode}在需要时使用Zip64扩展，等待写出的条目数同样有上限，
+ * 除压缩包目录所需的条目元数据外，内存占用与条目数量及大小无关。<br>
+ * 设置固定时间戳后进入可重现模式：所有条目使用同一时间戳及固定的Unix权限，不写入额外字段，输出只取决于文件内容。
+ */
+public class ParallelZipCreator implements ZipSources.Visitor, Closeable {
+
+    /**
+     * 内存预算以KB为单位折算成信号量许可
+     */
+    private static final int PERMIT_UNIT = 1024;
+
+    /**
+     * 每个压缩线程对应的等待写出条目数
+     */
+    private static final int PENDING_PER_THREAD = 64;
+
+    private final ZipArchiveOutputStream out;
+
+    private final CompressionPolicy policy;
+
+    private final ExecutorService executor;
+
+    private final Semaphore budget;
+
+    /**
+     * 信号量许可总数
+     */
+    private final int totalPermits;
+
+    /**
+     * 可进入线程池压缩的单个文件大小上限
+     */
+    private final long maxPooledSize;
+
+    /**
+     * 等待写出的条目数上限，目录、复用等不占内存预算的条目也计入，避免队首条目压缩较慢时队列无限增长
+     */
+    private final int maxPending;
+
+    /**
+     * 已提交但尚未写入压缩包的条目，按添加顺序排列
+     */
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    /**
+     * 可重现模式下所有条目使用的时间戳，为null时使用文件的修改时间
+     */
+    private Long fixedTime;
+
+    /**
+     * 增量打包时上一次的压缩包
+     */
+    private ZipFile previousZip;
+
+    /**
+     * 上一次压缩包的指纹清单
+     */
+    private ZipFingerprints previous;
+
+    /**
+     * 本次源文件的指纹清单
+     */
+    private ZipFingerprints current;
+
+    /**
+     * 构建报告，为null时不统计
+     */
+    private BuildReport report;
+
+    /**
+     * 压缩数据缓存，为null时不使用
+     */
+    private DeflateCache cache;
+
+    /**
+     * 构造
+     *
+     * @param out          压缩包输出流
+     * @param policy       压缩策略
+     * @param threads      压缩线程数
+     * @param memoryBudget 内存预算，单位byte
+     */
+    public ParallelZipCreator(ZipArchiveOutputStream out, CompressionPolicy policy, int threads, long memoryBudget) {
+        this.out = out;
+        this.policy = policy;
+        this.totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / PERMIT_UNIT));
+        this.budget = new Semaphore(totalPermits);
+        this.maxPooledSize = Math.max(PERMIT_UNIT, memoryBudget / Math.max(1, threads));
+        this.maxPending = Math.max(1, threads) * PENDING_PER_THREAD;
+        this.executor = SharedExecutors.get("bin-zip", Math.max(1, threads));
+    }
+
+    /**
+     * 开启可重现模式
+     *
+     * @param time 所有条目使用的时间戳，单位毫秒
+     */
+    public void setFixedTime(long time) {
+        // DOS时间按本地时区换算，预先抵消时区偏移，使不同时区的机器写出相同的字节
+        this.fixedTime = time - TimeZone.getDefault().getOffset(time);
+    }
+
+    /**
+     * 开启增量打包，指纹未变化的文件直接复制上一次压缩包中的原始压缩数据，不再重新压缩
+     *
+     * @param previousZip 上一次的压缩包
+     * @param previous    上一次压缩包的指纹清单
+     * @param current     本次源文件的指纹清单
+     */
+    public void reuseFrom(ZipFile previousZip, ZipFingerprints previous, ZipFingerprints current) {
+        this.previousZip = previousZip;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * 设置构建报告，统计每个条目的读取字节数及耗时（含压缩）
+     *
+     * @param report 构建报告
+     */
+    public void setReport(BuildReport report) {
+        this.report = report;
+    }
+
+    /**
+     * 设置压缩数据缓存，内容相同的DEFLATED条目直接使用缓存中的原始deflate数据
+     *
+     * @param cache 压缩数据缓存
+     */
+    public void setCache(DeflateCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 添加文件
+     *
+     * @param file 需要压缩的文件
+     * @param path 在压缩文件中的路径
+     * @throws IOException IO异常
+     */
+    public void addFile(File file, String path) throws IOException {
+        final CompressionPolicy.Rule rule = policy.match(path);
+        if (reuse(file.lastModified(), path, rule)) {
+            return;
+        }
+        final long length = file.length();
+        final boolean cached = null != cache && cache.accepts(rule.getMethod(), length);
+        if (length > maxPooledSize) {
+            // 大文件不占用内存预算，等之前的条目全部写出后直接流式压缩
+            drain();
+            if (false == cached || false == writeCached(file, path, rule)) {
+                writeStreaming(file, path, rule);
+            }
+            return;
+        }
+        final int permits = toPermits(length);
+        reserve(permits);
+        pending.add(new Pending(CompletableFuture.supplyAsync(() -> cached
+                ? compressCached(file, length, path, rule)
+                : compress(() -> IoUtil.toStream(file), length, file.lastModified(), path, rule), executor), permits));
+        writeCompleted();
+    }
+
+    /**
+     * 添加内存数据，例如生成的脚本
+     *
+     * @param data 数据
+     * @param path 在压缩文件中的路径
+     * @param time 修改时间
+     * @throws IOException IO异常
+     */
+    public void addBytes(byte[] data, String path, long time) throws IOException {
+        final CompressionPolicy.Rule rule = policy.match(path);
+        if (reuse(time, path, rule)) {
+            return;
+        }
+        final int permits = toPermits(data.length);
+        reserve(permits);
+        pending.add(new Pending(CompletableFuture.supplyAsync(
+                () -> compress(() -> new ByteArrayInputStream(data), data.length, time, path, rule), executor), permits));
+        writeCompleted();
+    }
+
+    /**
+     * 增量打包时指纹未变化且压缩方式相同，则复制上一次压缩包中的条目，原始压缩数据在写出时才从旧压缩包中读取
+     *
+     * @return 是否已复用
+     */
+    private boolean reuse(long time, String path, CompressionPolicy.Rule rule) throws IOException {
+        if (null == previousZip || false == previous.matches(path, current.get(path))) {
+            return false;
+        }
+        final ZipArchiveEntry old = previousZip.getEntry(path);
+        if (null == old || old.getMethod() != rule.getMethod()) {
+            return false;
+        }
+        final ZipArchiveEntry entry = newEntry(time, path, old.getMethod());
+        entry.setCrc(old.getCrc());
+        entry.setSize(old.getSize());
+        entry.setCompressedSize(old.getCompressedSize());
+        pending.add(new Pending(CompletableFuture.completedFuture(
+                new Compressed(entry, () -> previousZip.getRawInputStream(old))), 0));
+        if (null != report) {
+            report.addReusedEntry();
+        }
+        writeCompleted();
+        return true;
+    }
+
+    /**
+     * 添加目录
+     *
+     * @param dir  目录
+     * @param path 在压缩文件中的路径，以/结尾
+     * @throws IOException IO异常
+     */
+    public void addDir(File dir, String path) throws IOException {
+        final ZipArchiveEntry entry = newEntry(dir.lastModified(), path, ZipEntry.STORED);
+        entry.setSize(0);
+        entry.setCompressedSize(0);
+        entry.setCrc(0);
+        pending.add(new Pending(CompletableFuture.completedFuture(new Compressed(entry, null)), 0));
+        writeCompleted();
+    }
+
+    @Override
+    public void visitFile(File file, String path) throws IOException {
+        addFile(file, path);
+    }
+
+    @Override
+    public void visitDir(File dir, String path) throws IOException {
+        addDir(dir, path);
+    }
+
+    @Override
+    public void visitBytes(byte[] data, String path, long time) throws IOException {
+        addBytes(data, path, time);
+    }
+
+    /**
+     * 等待所有条目压缩完成并按顺序写入压缩包，不关闭输出流
+     *
+     * @throws IOException IO异常
+     */
+    public void finish() throws IOException {
+        drain();
+    }
+
+    /**
+     * 取消尚未写出的条目，线程池为共享线程池，不关闭
+     */
+    @Override
+    public void close() {
+        for (Pending item : pending) {
+            item.future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * 预留内存预算，预算不足时先写出队首条目以释放预算
+     */
+    private void reserve(int permits) throws IOException {
+        while (false == budget.tryAcquire(permits)) {
+            if (pending.isEmpty()) {
+                budget.acquireUninterruptibly(permits);
+                return;
+            }
+            writeHead();
+        }
+    }
+
+    /**
+     * 写出队首所有已完成压缩的条目
+     */
+    private void writeCompleted() throws IOException {
+        while (false == pending.isEmpty() && (pending.peek().future.isDone() || pending.size() > maxPending)) {
+            writeHead();
+        }
+    }
+
+    private void drain() throws IOException {
+        while (false == pending.isEmpty()) {
+            writeHead();
+        }
+    }
+
+    private void writeHead() throws IOException {
+        final Pending head = pending.poll();
+        final Compressed compressed;
+        try {
+            compressed = head.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        try {
+            if (null == compressed.data) {
+                out.putArchiveEntry(compressed.entry);
+                out.closeArchiveEntry();
+            } else {
+                try (InputStream in = compressed.data.get()) {
+                    out.addRawArchiveEntry(compressed.entry, in);
+                }
+            }
+        } finally {
+            budget.release(head.permits);
+        }
+    }
+
+    private void writeStreaming(File file, String path, CompressionPolicy.Rule rule) throws IOException {
+        final long start = System.nanoTime();
+        // 输出为可随机写入的文件，STORED条目的CRC及大小在写完后回填，无需预先读取一遍
+        final ZipArchiveEntry entry = newEntry(file.lastModified(), path, rule.getMethod());
+        entry.setSize(file.length());
+        out.setLevel(rule.getLevel());
+        out.putArchiveEntry(entry);
+        IoUtil.copy(file, out, progressOf(path));
+        out.closeArchiveEntry();
+        rule.record(entry.getSize(), entry.getCompressedSize(), System.nanoTime() - start);
+    }
+
+    /**
+     * 大文件使用缓存：命中时直接拼接缓存中的原始deflate数据，未命中时先压缩到缓存再拼接，均不占用内存。
+     * 打开缓存数据后才开始统计条目进度，回退到流式压缩时只由流式压缩统计一次
+     *
+     * @return 是否已写出，缓存写入失败或缓存文件已被淘汰时返回false，由调用方流式压缩
+     */
+    private boolean writeCached(File file, String path, CompressionPolicy.Rule rule) throws IOException {
+        final long start = System.nanoTime();
+        final String key = cache.key(file, rule.getLevel());
+        DeflateCache.Entry cached = cache.get(key);
+        if (null == cached) {
+            cached = cache.deflate(key, file, rule.getLevel());
+            if (null == cached) {
+                return false;
+            }
+        }
+        final ZipArchiveEntry entry = newEntry(file.lastModified(), path, rule.getMethod());
+        entry.setCrc(cached.getCrc());
+        entry.setSize(cached.getSize());
+        entry.setCompressedSize(cached.getCompressedSize());
+        final InputStream data;
+        try {
+            data = cached.open();
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        final IoUtil.StreamProgress progress = startProgress(path);
+        try (InputStream in = data) {
+            out.addRawArchiveEntry(entry, in);
+        }
+        finishProgress(progress, cached.getSize());
+        rule.record(cached.getSize(), cached.getCompressedSize(), System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * 在工作线程中使用缓存压缩：命中时读入缓存中的原始deflate数据，未命中或缓存文件已被淘汰时正常压缩并写入缓存
+     */
+    private Compressed compressCached(File file, long length, String path, CompressionPolicy.Rule rule) {
+        final long start = System.nanoTime();
+        try {
+            final String key = cache.key(file, rule.getLevel());
+            final DeflateCache.Entry cached = cache.get(key);
+            final byte[] data = null == cached ? null : readCached(cached, path);
+            if (null == data) {
+                // 未命中时由compress统计读取进度
+                final Compressed compressed = compress(() -> IoUtil.toStream(file), length, file.lastModified(), path, rule);
+                try (InputStream in = compressed.data.get()) {
+                    cache.put(key, compressed.entry.getCrc(), compressed.entry.getSize(), in);
+                }
+                return compressed;
+            }
+            final ZipArchiveEntry entry = newEntry(file.lastModified(), path, rule.getMethod());
+            entry.setCrc(cached.getCrc());
+            entry.setSize(cached.getSize());
+            entry.setCompressedSize(data.length);
+            rule.record(cached.getSize(), data.length, System.nanoTime() - start);
+            return new Compressed(entry, () -> new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读入缓存中的原始deflate数据，打开缓存文件后才开始统计条目进度
+     *
+     * @return 原始deflate数据，缓存文件已被其他构建淘汰时返回null，不统计进度
+     */
+    private byte[] readCached(DeflateCache.Entry cached, String path) throws IOException {
+        final InputStream data;
+        try {
+            data = cached.open();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        final IoUtil.StreamProgress progress = startProgress(path);
+        try (InputStream in = data) {
+            final byte[] bytes = IoUtil.readBytes(in);
+            finishProgress(progress, cached.getSize());
+            return bytes;
+        }
+    }
+
+    /**
+     * 在工作线程中按规则将数据压缩为原始deflate数据，或读入内存并计算CRC作为STORED数据
+     */
+    private Compressed compress(InputStreamSupplier source, long length, long time, String path, CompressionPolicy.Rule rule) {
+        final long start = System.nanoTime();
+        final CRC32 crc = new CRC32();
+        final FastByteArrayOutputStream data = new FastByteArrayOutputStream(
+                (int) Math.min(Math.max(length, 64), Integer.MAX_VALUE));
+        final Deflater deflater = (rule.getMethod() == ZipEntry.DEFLATED) ? ZlibPool.deflater(rule.getLevel(), true) : null;
+        final int bufferSize = IoUtil.bufferSize(length);
+        try (InputStream in = new CheckedInputStream(source.get(), crc)) {
+            final long size;
+            if (null == deflater) {
+                size = IoUtil.copy(in, data, bufferSize, progressOf(path));
+            } else {
+                final DeflaterOutputStream dos = new DeflaterOutputStream(data, deflater, bufferSize);
+                IoUtil.copy(in, dos, bufferSize, progressOf(path));
+                dos.finish();
+                size = deflater.getBytesRead();
+            }
+            final ZipArchiveEntry entry = newEntry(time, path, rule.getMethod());
+            entry.setCrc(crc.getValue());
+            entry.setSize(size);
+            entry.setCompressedSize(data.size());
+            rule.record(size, data.size(), System.nanoTime() - start);
+            return new Compressed(entry, data::getInputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (null != deflater) {
+                ZlibPool.release(deflater, rule.getLevel(), true);
+            }
+        }
+    }
+
+    private IoUtil.StreamProgress progressOf(String path) {
+        return null == report ? null : report.entry(path);
+    }
+
+    /**
+     * 不经过{@link IoUtil#copy}读取的条目（如命中缓存）手动统计进度
+     */
+    private IoUtil.StreamProgress startProgress(String path) {
+        final IoUtil.StreamProgress progress = progressOf(path);
+        if (null != progress) {
+            progress.start();
+        }
+        return progress;
+    }
+
+    private static void finishProgress(IoUtil.StreamProgress progress, long size) {
+        if (null != progress) {
+            progress.progress(size);
+            progress.finish();
+        }
+    }
+
+    /**
+     * 创建条目，可重现模式下使用固定时间戳，目录及sh脚本权限为755，其余文件为644
+     */
+    private ZipArchiveEntry newEntry(long time, String path, int method) {
+        final ZipArchiveEntry entry = new ZipArchiveEntry(path);
+        entry.setMethod(method);
+        if (null == fixedTime) {
+            entry.setTime(time);
+        } else {
+            entry.setTime(fixedTime);
+            if (path.endsWith("/")) {
+                entry.setUnixMode(UnixStat.DIR_FLAG | 0755);
+            } else {
+                entry.setUnixMode(UnixStat.FILE_FLAG | (path.endsWith(".sh") ? 0755 : 0644));
+            }
+        }
+        return entry;
+    }
+
+    private int toPermits(long length) {
+        return (int) Math.min(totalPermits, Math.max(1, (length + PERMIT_UNIT - 1) / PERMIT_UNIT));
+    }
+
+    /**
+     * 已压缩的条目，data为原始压缩数据，为null时表示目录
+     */
+    private static class Compressed {
+        private final ZipArchiveEntry entry;
+        private final InputStreamSupplier data;
+
+        Compressed(ZipArchiveEntry entry, InputStreamSupplier data) {
+            this.entry = entry;
+            this.data = data;
+        }
+    }
+
+    private static class Pending {
+        private final CompletableFuture<Compressed> future;
+        private final int permits;
+
+        Pending(CompletableFuture<Compressed> future, int permits) {
+            this.future = future;
+            this.permits = permits;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内共享的线程池<br>
+ * 按名称及线程数复用线程池，mvn -T并行构建时多个模块同时压缩，共用同一组压缩线程，
+ * 总线程数不随模块数增长，避免线程数成倍超过CPU核数；单模块构建时也省去每个压缩包创建、销毁线程的开销。<br>
+ * 线程为守护线程，空闲一段时间后自动退出，线程池本身不关闭，使用方不得调用shutdown，
+ * 需要中止时取消自己提交的任务即可。
+ */
+public class SharedExecutors {
+
+    /**
+     * 空闲线程保留时间，单位秒
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final Map<String, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+
+    /**
+     * 获取共享线程池，不存在时创建
+     *
+     * @param name    线程名前缀，如bin-zip
+     * @param threads 线程数，小于等于0时使用CPU核数
+     * @return 线程池
+     */
+    public static ExecutorService get(String name, int threads) {
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return EXECUTORS.computeIfAbsent(name + "-" + poolSize, key -> create(name, poolSize));
+    }
+
+    private static ExecutorService create(String name, int poolSize) {
+        final AtomicInteger index = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
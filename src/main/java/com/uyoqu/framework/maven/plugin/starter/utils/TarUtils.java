@@ -3,19 +3,30 @@ package com.uyoqu.framework.maven.plugin.starter.utils;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.GZIPInputStream;
 
 public class TarUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(TarUtils.class);
+
     private static final String BASE_DIR = "";
 
     // 符号"/"用来作为目录标识判断符
     private static final String PATH = "/";
 
-    private static final int BUFFER = 1024;
-
     private static final String EXT = ".tar";
 
+    /**
+     * 可执行文件的权限，rwxr-xr-x
+     */
+    private static final int EXECUTABLE_MODE = 0100755;
+
     /**
      * 归档
      *
@@ -41,15 +52,149 @@ public class TarUtils {
      * @throws Exception
      */
     public static void archive(File srcFile, File destFile) throws Exception {
+        archive(srcFile, destFile, null);
+    }
+
+    /**
+     * 可重现归档
+     *
+     * <pre>
+     *
+     *   条目按名称排序，修改时间统一为给定时间戳，属主清空为root(0)，目录及sh脚本权限为755，其余文件为644，
+     *   相同的输入得到字节完全相同的归档文件
+     * </pre>
+     *
+     * @param srcFile
+     *            源路径
+     * @param destFile
+     *            目标路径
+     * @param timestamp
+     *            所有条目使用的修改时间，单位毫秒，为null时保持原有行为
+     * @throws Exception
+     */
+    public static void archive(File srcFile, File destFile, Long timestamp) throws Exception {
 
         TarArchiveOutputStream taos = new TarArchiveOutputStream(new FileOutputStream(destFile));
+        // 超长文件名使用POSIX扩展头，避免GNU长文件名条目混入本机信息
+        taos.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
 
-        archive(srcFile, taos, BASE_DIR);
+        archive(srcFile, taos, BASE_DIR, timestamp);
 
         taos.flush();
         taos.close();
     }
 
+    /**
+     * 归档并以多线程gzip压缩为tar.gz，归档内以源目录名作为顶层目录
+     *
+     * @param srcFile
+     *            源路径
+     * @param destFile
+     *            目标路径
+     * @param timestamp
+     *            可重现归档的固定时间戳，为null时保持文件原有的修改时间
+     * @param threads
+     *            压缩线程数，小于等于0时使用CPU核数
+     * @param level
+     *            压缩级别
+     * @throws Exception
+     */
+    public static void archiveGz(File srcFile, File destFile, Long timestamp, int threads, int level) throws Exception {
+        ZipSources sources = srcFile.isDirectory()
+                ? ZipSources.create().addDir(srcFile, srcFile.getName() + PATH)
+                : ZipSources.create().addFile(srcFile, srcFile.getName());
+        archiveGz(sources, destFile, timestamp, threads, level);
+    }
+
+    /**
+     * 将多个内容来源归档并以多线程gzip压缩为tar.gz
+     *
+     * <pre>
+     *
+     *   数据分块在多个线程中压缩（见ParallelGzipOutputStream），输出仍为单个标准gzip流，可直接tar xzf；
+     *   可执行文件及sh脚本保留755权限
+     * </pre>
+     *
+     * @param sources
+     *            内容来源
+     * @param destFile
+     *            目标路径
+     * @param timestamp
+     *            可重现归档的固定时间戳，为null时保持原有的修改时间
+     * @param threads
+     *            压缩线程数，小于等于0时使用CPU核数
+     * @param level
+     *            压缩级别
+     * @throws Exception
+     */
+    public static void archiveGz(ZipSources sources, File destFile, Long timestamp, int threads, int level) throws Exception {
+        archiveGz(sources, destFile, timestamp, threads, level, null);
+    }
+
+    /**
+     * 将多个内容来源归档并以多线程gzip压缩为tar.gz，并将每个文件的读取字节数及耗时计入构建报告
+     *
+     * @param sources
+     *            内容来源
+     * @param destFile
+     *            目标路径
+     * @param timestamp
+     *            可重现归档的固定时间戳，为null时保持原有的修改时间
+     * @param threads
+     *            压缩线程数，小于等于0时使用CPU核数
+     * @param level
+     *            压缩级别
+     * @param report
+     *            构建报告，为null时不统计
+     * @throws Exception
+     */
+    public static void archiveGz(ZipSources sources, File destFile, Long timestamp, int threads, int level,
+                                 BuildReport report) throws Exception {
+        try (TarArchiveOutputStream taos = new TarArchiveOutputStream(
+                new ParallelGzipOutputStream(new FileOutputStream(destFile), level, threads))) {
+            taos.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            taos.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            sources.walk(null != timestamp, new ZipSources.Visitor() {
+                @Override
+                public void visitFile(File file, String path) throws IOException {
+                    TarArchiveEntry entry = new TarArchiveEntry(path);
+                    entry.setSize(file.length());
+                    entry.setModTime(file.lastModified());
+                    if (file.canExecute()) {
+                        entry.setMode(EXECUTABLE_MODE);
+                    }
+                    normalize(entry, timestamp);
+                    taos.putArchiveEntry(entry);
+                    IoUtil.copy(file, taos, null == report ? null : report.entry(path));
+                    taos.closeArchiveEntry();
+                }
+
+                @Override
+                public void visitDir(File dir, String path) throws IOException {
+                    TarArchiveEntry entry = new TarArchiveEntry(path);
+                    entry.setModTime(dir.lastModified());
+                    normalize(entry, timestamp);
+                    taos.putArchiveEntry(entry);
+                    taos.closeArchiveEntry();
+                }
+
+                @Override
+                public void visitBytes(byte[] data, String path, long time) throws IOException {
+                    TarArchiveEntry entry = new TarArchiveEntry(path);
+                    entry.setSize(data.length);
+                    entry.setModTime(time);
+                    if (path.endsWith(".sh")) {
+                        entry.setMode(EXECUTABLE_MODE);
+                    }
+                    normalize(entry, timestamp);
+                    taos.putArchiveEntry(entry);
+                    taos.write(data);
+                    taos.closeArchiveEntry();
+                }
+            });
+        }
+    }
+
     /**
      * 归档
      *
@@ -95,13 +240,15 @@ public class TarUtils {
      *            TarArchiveOutputStream
      * @param basePath
      *            归档包内相对路径
+     * @param timestamp
+     *            可重现归档的固定时间戳，为null时不做处理
      * @throws Exception
      */
-    private static void archive(File srcFile, TarArchiveOutputStream taos, String basePath) throws Exception {
+    private static void archive(File srcFile, TarArchiveOutputStream taos, String basePath, Long timestamp) throws Exception {
         if (srcFile.isDirectory()) {
-            archiveDir(srcFile, taos, basePath);
+            archiveDir(srcFile, taos, basePath, timestamp);
         } else {
-            archiveFile(srcFile, taos, basePath);
+            archiveFile(srcFile, taos, basePath, timestamp);
         }
     }
 
@@ -112,9 +259,10 @@ public class TarUtils {
      * @param taos
      *            TarArchiveOutputStream
      * @param basePath
+     * @param timestamp
      * @throws Exception
      */
-    private static void archiveDir(File dir, TarArchiveOutputStream taos, String basePath) throws Exception {
+    private static void archiveDir(File dir, TarArchiveOutputStream taos, String basePath, Long timestamp) throws Exception {
         File[] files = dir.listFiles();
 
         if (files.length < 1) {
@@ -122,15 +270,20 @@ public class TarUtils {
             String dirPath = basePath + dir.getName() + PATH;
             System.out.println(dirPath);
             TarArchiveEntry entry = new TarArchiveEntry(dirPath);
+            normalize(entry, timestamp);
 
             taos.putArchiveEntry(entry);
             taos.closeArchiveEntry();
         }
 
+        if (null != timestamp) {
+            Arrays.sort(files, Comparator.comparing(File::getName));
+        }
+
         for (File file : files) {
 
             // 递归归档
-            archive(file, taos, basePath + dir.getName() + PATH);
+            archive(file, taos, basePath + dir.getName() + PATH, timestamp);
 
         }
     }
@@ -146,9 +299,11 @@ public class TarUtils {
      *            归档文件名
      * @param taos
      *            TarArchiveOutputStream
+     * @param timestamp
+     *            可重现归档的固定时间戳
      * @throws Exception
      */
-    private static void archiveFile(File file, TarArchiveOutputStream taos, String dir) throws Exception {
+    private static void archiveFile(File file, TarArchiveOutputStream taos, String dir, Long timestamp) throws Exception {
 
         /**
          * 归档内文件名定义
@@ -162,21 +317,37 @@ public class TarUtils {
         TarArchiveEntry entry = new TarArchiveEntry(dir + file.getName());
 
         entry.setSize(file.length());
+        normalize(entry, timestamp);
 
         taos.putArchiveEntry(entry);
 
-        BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file));
-        int count;
-        byte data[] = new byte[BUFFER];
-        while ((count = bis.read(data, 0, BUFFER)) != -1) {
-            taos.write(data, 0, count);
-        }
-
-        bis.close();
+        IoUtil.copy(file, taos);
 
         taos.closeArchiveEntry();
     }
 
+    /**
+     * 可重现归档时统一条目的时间、属主及权限
+     *
+     * @param entry
+     *            归档条目
+     * @param timestamp
+     *            固定时间戳，为null时不做处理
+     */
+    private static void normalize(TarArchiveEntry entry, Long timestamp) {
+        if (null == timestamp) {
+            return;
+        }
+        entry.setModTime(timestamp);
+        entry.setIds(0, 0);
+        entry.setNames("", "");
+        if (entry.isDirectory()) {
+            entry.setMode(TarArchiveEntry.DEFAULT_DIR_MODE);
+        } else {
+            entry.setMode(entry.getName().endsWith(".sh") ? EXECUTABLE_MODE : TarArchiveEntry.DEFAULT_FILE_MODE);
+        }
+    }
+
     /**
      * 解归档
      *
@@ -204,6 +375,48 @@ public class TarUtils {
 
     }
 
+    /**
+     * 多线程解归档，支持.tar及.tar.gz/.tgz
+     *
+     * <pre>
+     *
+     *   调用线程顺序读取归档并创建目录，文件内容交给线程池并行写出（见ParallelExtractor），
+     *   条目路径不在目标目录内时抛出IllegalArgumentException，属主有执行权限的文件设置为可执行；
+     *   符号链接、硬链接及设备等特殊文件不还原，记录警告日志后跳过
+     * </pre>
+     *
+     * @param srcFile
+     *            归档文件
+     * @param destFile
+     *            目标目录
+     * @param threads
+     *            写出线程数，小于等于0时使用CPU核数
+     * @throws Exception
+     */
+    public static void dearchive(File srcFile, File destFile, int threads) throws Exception {
+        String name = srcFile.getName();
+        boolean gzip = name.endsWith(".gz") || name.endsWith(".tgz");
+        // gzip头部不合法时GZIPInputStream的构造即抛出异常，文件流同样在资源列表中关闭
+        try (InputStream fileIn = new BufferedInputStream(new FileInputStream(srcFile), IoUtil.DEFAULT_LARGE_BUFFER_SIZE);
+             InputStream in = gzip ? new GZIPInputStream(fileIn, IoUtil.DEFAULT_LARGE_BUFFER_SIZE) : fileIn;
+             TarArchiveInputStream tais = new TarArchiveInputStream(in);
+             ParallelExtractor extractor = new ParallelExtractor(destFile, threads, ParallelExtractor.DEFAULT_MEMORY_BUDGET)) {
+            TarArchiveEntry entry;
+            while ((entry = tais.getNextTarEntry()) != null) {
+                if (entry.isDirectory()) {
+                    extractor.mkdirs(entry.getName());
+                } else if (entry.isSymbolicLink() || entry.isLink()) {
+                    logger.warn("跳过{}：{} -> {}", entry.isSymbolicLink() ? "符号链接" : "硬链接", entry.getName(), entry.getLinkName());
+                } else if (entry.isCharacterDevice() || entry.isBlockDevice() || entry.isFIFO()) {
+                    logger.warn("跳过特殊文件：{}", entry.getName());
+                } else {
+                    extractor.write(extractor.resolve(entry.getName()), tais, entry.getSize(), (entry.getMode() & 0100) != 0);
+                }
+            }
+            extractor.finish();
+        }
+    }
+
     /**
      * 解归档
      *
@@ -241,7 +454,7 @@ public class TarUtils {
             if (entry.isDirectory()) {
                 dirFile.mkdirs();
             } else {
-                dearchiveFile(dirFile, tais);
+                dearchiveFile(dirFile, tais, entry.getSize());
             }
 
         }
@@ -283,19 +496,15 @@ public class TarUtils {
      *            目标文件
      * @param tais
      *            TarArchiveInputStream
+     * @param size
+     *            条目大小，用于确定拷贝缓存大小
      * @throws Exception
      */
-    private static void dearchiveFile(File destFile, TarArchiveInputStream tais) throws Exception {
+    private static void dearchiveFile(File destFile, TarArchiveInputStream tais, long size) throws Exception {
 
-        BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(destFile));
-
-        int count;
-        byte data[] = new byte[BUFFER];
-        while ((count = tais.read(data, 0, BUFFER)) != -1) {
-            bos.write(data, 0, count);
+        try (FileOutputStream fos = new FileOutputStream(destFile)) {
+            IoUtil.copy(tais, fos, IoUtil.bufferSize(size));
         }
-
-        bos.close();
     }
 
     /**
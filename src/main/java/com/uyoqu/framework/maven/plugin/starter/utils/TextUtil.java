@@ -7,7 +7,6 @@ import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -53,8 +52,6 @@ public class TextUtil
             fos = new FileOutputStream(new File(resultFilePath));
             taos = new TarArchiveOutputStream(fos);
             for (String filePath : filesPathArray) {
-                BufferedInputStream bis = null;
-                FileInputStream fis = null;
                 try {
                     File file = new File(filePath);
                     TarArchiveEntry tae = new TarArchiveEntry(file);
@@ -62,19 +59,9 @@ public class TextUtil
                     // 以(左边的)GBK编码将file.getName()“打碎”为序列,再“组装”序列为(右边的)GBK编码的字符串
                     tae.setName(new String(file.getName().getBytes("UTF8"), "UTF8"));
                     taos.putArchiveEntry(tae);
-                    fis = new FileInputStream(file);
-                    bis = new BufferedInputStream(fis);
-                    int count;
-                    byte data[] = new byte[1024];
-                    while ((count = bis.read(data, 0, 1024)) != -1) {
-                        taos.write(data, 0, count);
-                    }
+                    IoUtil.copy(file, taos);
                 } finally {
                     taos.closeArchiveEntry();
-                    if (bis != null)
-                        bis.close();
-                    if (fis != null)
-                        fis.close();
                 }
             }
         } finally {
@@ -120,7 +107,7 @@ public class TextUtil
         split[1] = split[1].substring(1);
         ZipArchiveEntry zipArchiveEntry = new ZipArchiveEntry(file, path.substring(path.length()-split[1].length(), path.length()));
         out.putArchiveEntry(zipArchiveEntry);
-        IOUtils.copy(new FileInputStream(file), out);
+        IoUtil.copy(file, out);
         out.closeArchiveEntry();
         }
         out.finish();
@@ -0,0 +1,194 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+
+import java.nio.charset.Charset;
+
+/**
+ * 压缩配置<br>
+ * 用于{@link ZipUtil#zip(java.io.File, java.io.File, ZipConfig)}，控制并行压缩的线程数、内存预算、压缩策略、可重现输出及增量打包
+ */
+public class ZipConfig {
+
+    /**
+     * 默认内存预算，128MB
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 128L * 1024 * 1024;
+
+    /**
+     * 编码
+     */
+    private Charset charset = Charset.defaultCharset();
+
+    /**
+     * 压缩线程数，小于等于1时使用单线程串行压缩
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 并行压缩时在内存中暂存的压缩数据上限，单位byte
+     */
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+
+    /**
+     * 压缩策略，为null时所有条目使用默认级别压缩
+     */
+    private CompressionPolicy compressionPolicy;
+
+    /**
+     * 可重现打包使用的固定时间戳，单位毫秒，为null时不开启可重现模式
+     */
+    private Long reproducibleTime;
+
+    /**
+     * 是否增量打包，复用上一次压缩包中未变化文件的压缩数据
+     */
+    private boolean incremental;
+
+    /**
+     * 增量打包时是否以内容摘要判断文件是否变化，为false时仅比较大小及修改时间
+     */
+    private boolean hashContent;
+
+    /**
+     * Zip64扩展的使用方式，默认在条目超过4GB、条目数超过65535或压缩包超过4GB时自动使用
+     */
+    private Zip64Mode zip64Mode = Zip64Mode.AsNeeded;
+
+    /**
+     * 构建报告，不为null时统计每个条目的读取字节数及耗时
+     */
+    private BuildReport report;
+
+    /**
+     * 压缩数据缓存，不为null时内容相同的条目直接使用缓存中的压缩数据
+     */
+    private DeflateCache deflateCache;
+
+    /**
+     * 创建默认配置
+     *
+     * @return ZipConfig
+     */
+    public static ZipConfig create() {
+        return new ZipConfig();
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public ZipConfig setCharset(Charset charset) {
+        this.charset = (null == charset) ? Charset.defaultCharset() : charset;
+        return this;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * 设置压缩线程数
+     *
+     * @param threads 线程数，小于等于0时使用CPU核数
+     * @return this
+     */
+    public ZipConfig setThreads(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return this;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * 设置内存预算
+     *
+     * @param memoryBudget 内存预算，单位byte，小于等于0时使用默认值
+     * @return this
+     */
+    public ZipConfig setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget > 0 ? memoryBudget : DEFAULT_MEMORY_BUDGET;
+        return this;
+    }
+
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    public ZipConfig setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+        return this;
+    }
+
+    public Long getReproducibleTime() {
+        return reproducibleTime;
+    }
+
+    /**
+     * 开启可重现打包：条目按名称排序，时间戳统一为给定时间，权限固定，相同输入得到字节完全相同的压缩包
+     *
+     * @param reproducibleTime 固定时间戳，单位毫秒，为null时关闭
+     * @return this
+     */
+    public ZipConfig setReproducibleTime(Long reproducibleTime) {
+        this.reproducibleTime = reproducibleTime;
+        return this;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public ZipConfig setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    public boolean isHashContent() {
+        return hashContent;
+    }
+
+    public ZipConfig setHashContent(boolean hashContent) {
+        this.hashContent = hashContent;
+        return this;
+    }
+
+    public Zip64Mode getZip64Mode() {
+        return zip64Mode;
+    }
+
+    public ZipConfig setZip64Mode(Zip64Mode zip64Mode) {
+        this.zip64Mode = zip64Mode;
+        return this;
+    }
+
+    public BuildReport getReport() {
+        return report;
+    }
+
+    public ZipConfig setReport(BuildReport report) {
+        this.report = report;
+        return this;
+    }
+
+    public DeflateCache getDeflateCache() {
+        return deflateCache;
+    }
+
+    public ZipConfig setDeflateCache(DeflateCache deflateCache) {
+        this.deflateCache = deflateCache;
+        return this;
+    }
+
+    /**
+     * 影响压缩结果的配置签名，增量打包时签名不一致则不复用上一次的压缩数据
+     *
+     * @return 配置签名
+     */
+    public String signature() {
+        return "charset=" + charset.name() + ";hash=" + hashContent + ";policy=" + compressionPolicy
+                + ";time=" + reproducibleTime;
+    }
+}
@@ -0,0 +1,277 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 压缩包条目指纹清单<br>
+ * 记录压缩包内每个条目对应源文件的指纹（大小、修改时间，可选内容摘要），以旁路文件的形式保存在压缩包旁，
+ * 增量打包时据此判断哪些条目可以直接复用上一次的压缩数据。<br>
+ * 清单同时记录压缩包自身的大小与修改时间以及压缩配置签名，任一不符时清单作废。
+ * <pre>
+ * 文件格式（UTF-8，每行以TAB分隔）：
+ * archive	压缩包大小,修改时间
+ * settings	压缩配置签名
+ * 指纹	条目路径
+ * </pre>
+ */
+public class ZipFingerprints {
+
+    /**
+     * 清单文件后缀
+     */
+    public static final String EXT = ".fingerprints";
+
+    /**
+     * 空目录的指纹
+     */
+    private static final String DIR_FINGERPRINT = "D";
+
+    private static final String ARCHIVE_KEY = "archive";
+
+    private static final String SETTINGS_KEY = "settings";
+
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * 条目路径 -> 指纹
+     */
+    private final Map<String, String> entries = new LinkedHashMap<>();
+
+    private final String settings;
+
+    /**
+     * 构造
+     *
+     * @param settings 压缩配置签名
+     */
+    public ZipFingerprints(String settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * 获取压缩包对应的清单文件
+     *
+     * @param zipFile 压缩包
+     * @return 清单文件
+     */
+    public static File manifestOf(File zipFile) {
+        return new File(zipFile.getParentFile(), zipFile.getName() + EXT);
+    }
+
+    /**
+     * 扫描内容来源，生成所有文件、空目录及内存数据的指纹
+     *
+     * @param sources  压缩包的内容来源
+     * @param settings 压缩配置签名
+     * @param hash     是否计算内容摘要，为true时以大小和摘要作为指纹，忽略修改时间
+     * @return 指纹清单
+     * @throws IOException IO异常
+     */
+    public static ZipFingerprints scan(ZipSources sources, String settings, boolean hash) throws IOException {
+        final ZipFingerprints fingerprints = new ZipFingerprints(settings);
+        sources.walk(false, new ZipSources.Visitor() {
+            @Override
+            public void visitFile(File file, String path) throws IOException {
+                fingerprints.entries.put(path, fingerprint(file, hash));
+            }
+
+            @Override
+            public void visitDir(File dir, String path) {
+                fingerprints.entries.put(path, DIR_FINGERPRINT);
+            }
+
+            @Override
+            public void visitBytes(byte[] data, String path, long time) {
+                // 生成的内容每次构建时间都不同，只按内容判断
+                fingerprints.entries.put(path, data.length + ",sha256:" + sha256Hex(data));
+            }
+        });
+        return fingerprints;
+    }
+
+    /**
+     * 计算文件指纹
+     *
+     * @param file 文件
+     * @param hash 是否计算内容摘要
+     * @return 指纹
+     * @throws IOException IO异常
+     */
+    public static String fingerprint(File file, boolean hash) throws IOException {
+        if (false == hash) {
+            return file.length() + "," + file.lastModified();
+        }
+        return file.length() + ",sha256:" + sha256Hex(file);
+    }
+
+    /**
+     * 计算文件的SHA-256摘要
+     *
+     * @param file 文件
+     * @return 十六进制摘要
+     * @throws IOException IO异常
+     */
+    public static String sha256Hex(File file) throws IOException {
+        final MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(FileUtil.getInputStream(file), digest)) {
+            final byte[] buffer = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+            while (in.read(buffer) != IoUtil.EOF) {
+                // 读取即计算摘要
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 计算数据的SHA-256摘要
+     *
+     * @param data 数据
+     * @return 十六进制摘要
+     */
+    public static String sha256Hex(byte[] data) {
+        return toHex(sha256().digest(data));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 读取清单，清单不存在、格式错误、与压缩包或压缩配置不匹配时返回空清单
+     *
+     * @param manifest 清单文件
+     * @param zipFile  清单对应的压缩包
+     * @param settings 当前压缩配置签名
+     * @return 指纹清单
+     */
+    public static ZipFingerprints load(File manifest, File zipFile, String settings) {
+        final ZipFingerprints fingerprints = new ZipFingerprints(settings);
+        if (false == manifest.isFile() || false == zipFile.isFile()) {
+            return fingerprints;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(FileUtil.getInputStream(manifest), StandardCharsets.UTF_8))) {
+            if (false == (ARCHIVE_KEY + SEPARATOR + archiveFingerprint(zipFile)).equals(reader.readLine())
+                    || false == (SETTINGS_KEY + SEPARATOR + settings).equals(reader.readLine())) {
+                return fingerprints;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int index = line.indexOf(SEPARATOR);
+                if (index < 0) {
+                    fingerprints.entries.clear();
+                    return fingerprints;
+                }
+                fingerprints.entries.put(line.substring(index + 1), line.substring(0, index));
+            }
+        } catch (IOException e) {
+            fingerprints.entries.clear();
+        }
+        return fingerprints;
+    }
+
+    /**
+     * 保存清单，需在压缩包写完后调用
+     *
+     * @param manifest 清单文件
+     * @param zipFile  清单对应的压缩包
+     * @throws IOException IO异常
+     */
+    public void save(File manifest, File zipFile) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(FileUtil.getOutputStream(manifest), StandardCharsets.UTF_8))) {
+            writer.write(ARCHIVE_KEY + SEPARATOR + archiveFingerprint(zipFile));
+            writer.newLine();
+            writer.write(SETTINGS_KEY + SEPARATOR + settings);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(entry.getValue() + SEPARATOR + entry.getKey());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * 获取条目指纹
+     *
+     * @param path 条目路径
+     * @return 指纹，不存在时返回null
+     */
+    public String get(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * 判断条目指纹是否与给定指纹一致
+     *
+     * @param path        条目路径
+     * @param fingerprint 指纹
+     * @return 是否一致
+     */
+    public boolean matches(String path, String fingerprint) {
+        return null != fingerprint && fingerprint.equals(entries.get(path));
+    }
+
+    /**
+     * 清单是否为空
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * 两份清单的条目及指纹是否完全一致
+     *
+     * @param other 另一份清单
+     * @return 是否一致
+     */
+    public boolean sameEntries(ZipFingerprints other) {
+        return null != other && entries.equals(other.entries);
+    }
+
+    /**
+     * 清单摘要，由压缩配置签名及按路径排序的全部条目指纹计算，与遍历顺序无关<br>
+     * 以内容摘要扫描时，只要条目内容与压缩配置不变，摘要即不变
+     *
+     * @return 十六进制SHA-256摘要
+     */
+    public String digest() {
+        final MessageDigest digest = sha256();
+        digest.update((settings + '\n').getBytes(StandardCharsets.UTF_8));
+        for (String path : new TreeSet<>(entries.keySet())) {
+            digest.update((entries.get(path) + SEPARATOR + path + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String archiveFingerprint(File zipFile) {
+        return zipFile.length() + "," + zipFile.lastModified();
+    }
+}
@@ -0,0 +1,451 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * 可随机读取的压缩包索引<br>
+ * 解析一次压缩包目录（支持Zip64），按条目名称直接定位数据，按位置读取，不逐个遍历条目。<br>
+ * 解析结果以 路径+大小+修改时间+编码 为键缓存在进程内的LRU缓存中，压缩包未变化时重复查找无需再次解析目录；
+ * 压缩包被替换后大小或修改时间变化，自动重新解析。缓存中只保留解析后的目录，不持有文件句柄及内存映射，
+ * 每次读取时打开压缩包，读取的数据量与条目大小成正比，与压缩包大小无关。<br>
+ * 适用于从大量压缩包中反复读取MANIFEST.MF、application.yml、pom.properties等少量小文件，线程安全。
+ */
+public class ZipIndex {
+
+    /**
+     * 缓存的压缩包索引数量上限
+     */
+    public static final int CACHE_SIZE = 64;
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int ENCRYPTED_FLAG = 1;
+
+    /**
+     * 解析目录及计算摘要时的读取缓冲区大小，需容纳一个目录记录（固定部分加上名称、扩展字段及注释，各最大65535字节）
+     */
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final Map<String, ZipIndex> CACHE = new LinkedHashMap<String, ZipIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ZipIndex> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final File zipFile;
+
+    private final long length;
+
+    private final Map<String, Entry> entries;
+
+    private final long cdOffset;
+
+    private final long cdSize;
+
+    /**
+     * 压缩包目录的摘要，首次使用时计算
+     */
+    private volatile String checksum;
+
+    private ZipIndex(File zipFile, long length, Map<String, Entry> entries, long cdOffset, long cdSize) {
+        this.zipFile = zipFile;
+        this.length = length;
+        this.entries = entries;
+        this.cdOffset = cdOffset;
+        this.cdSize = cdSize;
+    }
+
+    /**
+     * 获取压缩包索引，压缩包未变化时直接返回缓存的索引
+     *
+     * @param zipFile 压缩包
+     * @param charset 未声明UTF-8标志的条目名称使用的编码
+     * @return 压缩包索引
+     */
+    public static ZipIndex open(File zipFile, Charset charset) {
+        final File file = zipFile.getAbsoluteFile();
+        final String key = file.getPath() + '|' + file.length() + '|' + file.lastModified() + '|' + charset.name();
+        synchronized (CACHE) {
+            final ZipIndex cached = CACHE.get(key);
+            if (null != cached) {
+                return cached;
+            }
+        }
+        final ZipIndex index = parse(file, charset);
+        synchronized (CACHE) {
+            CACHE.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * 条目名称，包括目录
+     *
+     * @return 条目名称
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * 是否包含条目
+     *
+     * @param name 条目名称
+     * @return 是否包含
+     */
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * 条目的原始大小，只读取目录，不读取条目数据
+     *
+     * @param name 条目名称
+     * @return 原始大小，单位byte，条目不存在时为-1
+     */
+    public long size(String name) {
+        final Entry entry = entries.get(name);
+        return null == entry ? -1 : entry.size;
+    }
+
+    /**
+     * 压缩包目录的SHA-256摘要<br>
+     * 目录中包含每个条目的名称、大小及CRC，任一条目内容变化摘要即变化，可作为压缩包内容的校验和，只需读取目录，不读取条目数据
+     *
+     * @return 十六进制摘要
+     */
+    public String checksum() {
+        if (null == checksum) {
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+                final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(1, cdSize)));
+                for (long offset = cdOffset; offset < cdOffset + cdSize; offset += buffer.limit()) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), cdOffset + cdSize - offset));
+                    readFully(channel, buffer, offset);
+                    buffer.flip();
+                    digest.update(buffer);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            final StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            checksum = hex.toString();
+        }
+        return checksum;
+    }
+
+    /**
+     * 读取条目内容
+     *
+     * @param name 条目名称，如果存在于子文件夹中，此名称必须包含目录名，例如images/aaa.txt
+     * @return 条目内容，条目不存在或为目录时返回null
+     */
+    public byte[] read(String name) {
+        final Entry entry = entries.get(name);
+        if (null == entry || name.endsWith("/")) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+            return read(channel, name, entry);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 批量读取条目内容，压缩包只打开一次
+     *
+     * @param names 条目名称
+     * @return 条目名称 -> 内容，不存在的条目及目录不包含在结果中
+     */
+    public Map<String, byte[]> read(Collection<String> names) {
+        final Map<String, byte[]> result = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+            for (String name : names) {
+                final Entry entry = entries.get(name);
+                if (null != entry && false == name.endsWith("/")) {
+                    result.put(name, read(channel, name, entry));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    private byte[] read(FileChannel channel, String name, Entry entry) throws IOException {
+        if ((entry.flags & ENCRYPTED_FLAG) != 0) {
+            throw new IOException("Encrypted entry is not supported: " + name);
+        }
+        if (entry.method != ZipEntry.STORED && entry.method != ZipEntry.DEFLATED) {
+            throw new IOException("Unsupported compression method " + entry.method + ": " + name);
+        }
+        if (entry.size > Integer.MAX_VALUE || entry.compressedSize > Integer.MAX_VALUE) {
+            throw new IOException("Entry is too large to be read into memory: " + name);
+        }
+        final ByteBuffer header = region(channel, entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIG) {
+            throw new IOException("Invalid local file header: " + name);
+        }
+        final long dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+        final byte[] compressed = region(channel, dataOffset, (int) entry.compressedSize).array();
+
+        final byte[] content;
+        if (entry.method == ZipEntry.STORED) {
+            content = compressed;
+        } else {
+            content = new byte[(int) entry.size];
+            final Inflater inflater = ZlibPool.inflater(true);
+            try {
+                inflater.setInput(compressed);
+                int n = 0;
+                while (n < content.length && false == inflater.finished()) {
+                    final int read = inflater.inflate(content, n, content.length - n);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    n += read;
+                }
+                if (n != content.length) {
+                    throw new IOException("Truncated entry: " + name);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                ZlibPool.release(inflater, true);
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+        if (crc.getValue() != entry.crc) {
+            throw new IOException("CRC mismatch: " + name);
+        }
+        return content;
+    }
+
+    /**
+     * 按位置读取压缩包中的指定区域
+     */
+    private ByteBuffer region(FileChannel channel, long offset, int size) throws IOException {
+        if (offset < 0 || offset + size > length) {
+            throw new IOException("Entry data is outside of the archive: " + zipFile);
+        }
+        return read(channel, offset, size);
+    }
+
+    /**
+     * 按位置读取指定区域到新的缓冲区，不改变通道的当前位置，可多线程共用同一通道
+     */
+    private static ByteBuffer read(FileChannel channel, long offset, int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, offset);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, offset);
+            if (n < 0) {
+                throw new IOException("Unexpected end of archive");
+            }
+            offset += n;
+        }
+    }
+
+    /**
+     * 保证缓冲区中至少有size个未读字节，不足时从通道补充
+     *
+     * @return 下一次补充的读取位置
+     */
+    private static long fill(FileChannel channel, ByteBuffer buffer, long position, long end, int size) throws IOException {
+        if (buffer.remaining() >= size) {
+            return position;
+        }
+        buffer.compact();
+        buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + end - position));
+        final long start = buffer.position();
+        readFully(channel, buffer, position);
+        position += buffer.position() - start;
+        buffer.flip();
+        if (buffer.remaining() < size) {
+            throw new IOException("Truncated central directory");
+        }
+        return position;
+    }
+
+    /**
+     * 解析压缩包目录
+     */
+    private static ZipIndex parse(File zipFile, Charset charset) {
+        try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+            final long length = channel.size();
+
+            // 从末尾向前查找目录结束记录，其后可能跟有注释
+            final int tailSize = (int) Math.min(length, EOCD_SIZE + MAX_COMMENT_SIZE);
+            final ByteBuffer tail = read(channel, length - tailSize, tailSize);
+            int eocd = -1;
+            for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIG) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("Not a zip file: " + zipFile);
+            }
+            long count = tail.getShort(eocd + 10) & 0xffff;
+            long cdSize = tail.getInt(eocd + 12) & ZIP64_MAGIC;
+            long cdOffset = tail.getInt(eocd + 16) & ZIP64_MAGIC;
+
+            final long eocdPosition = length - tailSize + eocd;
+            if (eocdPosition >= ZIP64_LOCATOR_SIZE) {
+                final ByteBuffer locator = read(channel, eocdPosition - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+                if (locator.getInt(0) == ZIP64_LOCATOR_SIG) {
+                    final long zip64Offset = locator.getLong(8);
+                    if (zip64Offset < 0 || zip64Offset + 56 > length) {
+                        throw new IOException("Invalid zip64 end of central directory: " + zipFile);
+                    }
+                    final ByteBuffer zip64 = read(channel, zip64Offset, 56);
+                    if (zip64.getInt(0) != ZIP64_EOCD_SIG) {
+                        throw new IOException("Invalid zip64 end of central directory: " + zipFile);
+                    }
+                    count = zip64.getLong(32);
+                    cdSize = zip64.getLong(40);
+                    cdOffset = zip64.getLong(48);
+                }
+            }
+            if (cdOffset + cdSize > length) {
+                throw new IOException("Invalid central directory: " + zipFile);
+            }
+
+            // 目录分段读入固定大小的缓冲区，内存占用与目录大小无关
+            final ByteBuffer cd = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            cd.limit(0);
+            final long cdEnd = cdOffset + cdSize;
+            long position = cdOffset;
+            final Map<String, Entry> entries = new HashMap<>((int) Math.min(count * 4 / 3 + 1, Integer.MAX_VALUE));
+            for (long i = 0; i < count; i++) {
+                position = fill(channel, cd, position, cdEnd, CENTRAL_HEADER_SIZE);
+                int p = cd.position();
+                if (cd.getInt(p) != CENTRAL_HEADER_SIG) {
+                    throw new IOException("Invalid central directory entry: " + zipFile);
+                }
+                final int flags = cd.getShort(p + 8) & 0xffff;
+                final int nameLength = cd.getShort(p + 28) & 0xffff;
+                final int extraLength = cd.getShort(p + 30) & 0xffff;
+                final int commentLength = cd.getShort(p + 32) & 0xffff;
+                final int recordSize = CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+                // 补充数据时缓冲区被压缩，记录移到缓冲区开头
+                position = fill(channel, cd, position, cdEnd, recordSize);
+                p = cd.position();
+                final Entry entry = new Entry();
+                entry.flags = flags;
+                entry.method = cd.getShort(p + 10) & 0xffff;
+                entry.crc = cd.getInt(p + 16) & ZIP64_MAGIC;
+                entry.compressedSize = cd.getInt(p + 20) & ZIP64_MAGIC;
+                entry.size = cd.getInt(p + 24) & ZIP64_MAGIC;
+                entry.localHeaderOffset = cd.getInt(p + 42) & ZIP64_MAGIC;
+
+                final byte[] name = new byte[nameLength];
+                cd.position(p + CENTRAL_HEADER_SIZE);
+                cd.get(name);
+                readZip64Extra(cd, p + CENTRAL_HEADER_SIZE + nameLength, extraLength, entry);
+
+                entries.put(new String(name, (flags & UTF8_FLAG) != 0 ? StandardCharsets.UTF_8 : charset), entry);
+                cd.position(p + recordSize);
+            }
+            return new ZipIndex(zipFile, length, entries, cdOffset, cdSize);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 读取Zip64扩展字段，只有在标准字段为0xFFFFFFFF时扩展字段中才有对应的值
+     */
+    private static void readZip64Extra(ByteBuffer cd, int offset, int length, Entry entry) {
+        final int end = offset + length;
+        while (offset + 4 <= end) {
+            final int id = cd.getShort(offset) & 0xffff;
+            final int size = cd.getShort(offset + 2) & 0xffff;
+            if (id == ZIP64_EXTRA_ID) {
+                int p = offset + 4;
+                if (entry.size == ZIP64_MAGIC) {
+                    entry.size = cd.getLong(p);
+                    p += 8;
+                }
+                if (entry.compressedSize == ZIP64_MAGIC) {
+                    entry.compressedSize = cd.getLong(p);
+                    p += 8;
+                }
+                if (entry.localHeaderOffset == ZIP64_MAGIC) {
+                    entry.localHeaderOffset = cd.getLong(p);
+                }
+                return;
+            }
+            offset += 4 + size;
+        }
+    }
+
+    /**
+     * 条目在压缩包中的位置及大小
+     */
+    private static class Entry {
+        private int flags;
+        private int method;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private long localHeaderOffset;
+    }
+}
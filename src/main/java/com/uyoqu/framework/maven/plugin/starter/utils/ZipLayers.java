@@ -0,0 +1,201 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层压缩<br>
+ * 按条目路径把内容来源拆分到多个层，每层写出为目录下单独的压缩包，并在索引文件中记录每层的内容摘要。<br>
+ * 内容摘要由层内所有条目的路径及内容摘要计算，与文件修改时间、遍历顺序无关；摘要与上一次索引一致且压缩包存在时不重写该层，
+ * 压缩包保持原样（包括修改时间），rsync等工具只需传输变化的层。
+ * <pre>
+ * 索引文件 layers.idx（UTF-8，每行以TAB分隔）：
+ * 层名称	内容摘要	压缩包文件名
+ * </pre>
+ */
+public class ZipLayers {
+
+    /**
+     * 索引文件名
+     */
+    public static final String INDEX = "layers.idx";
+
+    /**
+     * 层压缩包后缀
+     */
+    public static final String EXT = ".zip";
+
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * 按层写出压缩包
+     *
+     * @param dir        输出目录
+     * @param layers     层名称，按顺序写出，没有条目的层写出空压缩包
+     * @param sources    内容来源
+     * @param classifier 条目所属层的判断
+     * @param config     压缩配置
+     * @return 各层的写出结果，顺序与layers一致
+     */
+    public static List<Layer> zip(File dir, List<String> layers, ZipSources sources, Classifier classifier, ZipConfig config) {
+        final Map<String, ZipSources> split = split(layers, sources, classifier);
+        final File index = new File(dir, INDEX);
+        final Map<String, String> previous = loadIndex(index);
+        final List<Layer> result = new ArrayList<>();
+        try {
+            for (Map.Entry<String, ZipSources> entry : split.entrySet()) {
+                final String name = entry.getKey();
+                final File zipFile = new File(dir, name + EXT);
+                final String digest = ZipFingerprints.scan(entry.getValue(), config.signature(), true).digest();
+                final boolean changed = false == zipFile.isFile() || false == digest.equals(previous.get(name));
+                if (changed) {
+                    ZipUtil.zip(zipFile, entry.getValue(), config);
+                }
+                result.add(new Layer(name, zipFile, digest, changed));
+            }
+            saveIndex(index, result);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    /**
+     * 按层拆分内容来源
+     */
+    private static Map<String, ZipSources> split(List<String> layers, ZipSources sources, final Classifier classifier) {
+        final Map<String, ZipSources> split = new LinkedHashMap<>();
+        for (String layer : layers) {
+            split.put(layer, ZipSources.create());
+        }
+        try {
+            sources.walk(false, new ZipSources.Visitor() {
+                @Override
+                public void visitFile(File file, String path) {
+                    layerOf(path).addFile(file, path);
+                }
+
+                @Override
+                public void visitDir(File dir, String path) {
+                    layerOf(path).addDir(dir, path);
+                }
+
+                @Override
+                public void visitBytes(byte[] data, String path, long time) {
+                    layerOf(path).addBytes(data, path, time);
+                }
+
+                private ZipSources layerOf(String path) {
+                    final String layer = classifier.layerOf(path);
+                    final ZipSources layerSources = split.get(layer);
+                    if (null == layerSources) {
+                        throw new IllegalArgumentException("条目" + path + "所属的层" + layer + "不存在");
+                    }
+                    return layerSources;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return split;
+    }
+
+    private static Map<String, String> loadIndex(File index) {
+        final Map<String, String> digests = new HashMap<>();
+        if (false == index.isFile()) {
+            return digests;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(FileUtil.getInputStream(index), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] columns = line.split(String.valueOf(SEPARATOR));
+                if (columns.length >= 2) {
+                    digests.put(columns[0], columns[1]);
+                }
+            }
+        } catch (IOException e) {
+            digests.clear();
+        }
+        return digests;
+    }
+
+    private static void saveIndex(File index, List<Layer> layers) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(FileUtil.getOutputStream(index), StandardCharsets.UTF_8))) {
+            for (Layer layer : layers) {
+                writer.write(layer.getName() + SEPARATOR + layer.getDigest() + SEPARATOR + layer.getFile().getName());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * 条目所属层的判断
+     */
+    public interface Classifier {
+
+        /**
+         * 获取条目所属的层
+         *
+         * @param path 压缩包内的路径
+         * @return 层名称
+         */
+        String layerOf(String path);
+    }
+
+    /**
+     * 层的写出结果
+     */
+    public static class Layer {
+        private final String name;
+        private final File file;
+        private final String digest;
+        private final boolean changed;
+
+        Layer(String name, File file, String digest, boolean changed) {
+            this.name = name;
+            this.file = file;
+            this.digest = digest;
+            this.changed = changed;
+        }
+
+        /**
+         * @return 层名称
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 层压缩包
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return 内容摘要
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        /**
+         * @return 本次是否重新写出
+         */
+        public boolean isChanged() {
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 压缩包的内容来源<br>
+ * 按添加顺序组合目录、单个文件及内存数据，由{@link ZipUtil#zip(File, ZipSources, ZipConfig)}一次写入压缩包，
+ * 无需先把所有内容复制到同一个目录中。
+ */
+public class ZipSources {
+
+    private final List<Source> sources = new ArrayList<>();
+
+    /**
+     * 创建空的内容来源
+     *
+     * @return ZipSources
+     */
+    public static ZipSources create() {
+        return new ZipSources();
+    }
+
+    /**
+     * 添加目录，目录下的所有文件以prefix为前缀加入压缩包，目录不存在时忽略
+     *
+     * @param dir    目录
+     * @param prefix 压缩包内的路径前缀，为空或以/结尾，例如WEB-INF/classes/
+     * @return this
+     */
+    public ZipSources addDir(File dir, String prefix) {
+        if (null != dir && dir.isDirectory()) {
+            sources.add(new Source(dir, StringUtils.isEmpty(prefix) ? "" : ZipUtil.addSuffixIfNot(prefix, "/"), null, 0));
+        }
+        return this;
+    }
+
+    /**
+     * 添加单个文件
+     *
+     * @param file 文件
+     * @param path 压缩包内的路径
+     * @return this
+     */
+    public ZipSources addFile(File file, String path) {
+        sources.add(new Source(file, path, null, 0));
+        return this;
+    }
+
+    /**
+     * 添加内存数据
+     *
+     * @param data 数据
+     * @param path 压缩包内的路径
+     * @param time 修改时间，单位毫秒
+     * @return this
+     */
+    public ZipSources addBytes(byte[] data, String path, long time) {
+        sources.add(new Source(null, path, data, time));
+        return this;
+    }
+
+    /**
+     * 查找来源中不存在的文件
+     *
+     * @return 缺失的文件，全部存在时返回null
+     */
+    File findMissing() {
+        for (Source source : sources) {
+            if (null != source.file && false == source.file.exists()) {
+                return source.file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按添加顺序遍历所有条目，目录递归展开，只有空目录作为目录条目输出
+     *
+     * @param sorted  是否按文件名排序遍历目录
+     * @param visitor 访问者
+     * @throws IOException IO异常
+     */
+    public void walk(boolean sorted, Visitor visitor) throws IOException {
+        for (Source source : sources) {
+            if (null != source.data) {
+                visitor.visitBytes(source.data, source.path, source.time);
+            } else if (source.file.isDirectory()) {
+                walk(source.file, source.path, sorted, visitor);
+            } else {
+                visitor.visitFile(source.file, source.path);
+            }
+        }
+    }
+
+    /**
+     * 以显式栈深度优先遍历目录，不递归调用，目录树的深度不受线程栈大小限制<br>
+     * 不排序时以{@link DirectoryStream}逐个读取目录项，内存占用只与目录深度有关，与目录下的文件数量无关；
+     * 排序时每层只暂存当前目录的文件名列表
+     */
+    private static void walk(File root, String rootPath, boolean sorted, Visitor visitor) throws IOException {
+        final Deque<Level> stack = new ArrayDeque<>();
+        try {
+            final Level rootLevel = Level.open(root.toPath(), rootPath, sorted);
+            if (false == rootLevel.hasNext()) {
+                rootLevel.close();
+                if (StringUtils.isNotEmpty(rootPath)) {
+                    // 加入目录，只有空目录时才加入目录，非空时会在创建文件时自动添加父级目录
+                    visitor.visitDir(root, rootPath);
+                }
+                return;
+            }
+            stack.push(rootLevel);
+            while (false == stack.isEmpty()) {
+                final Level level = stack.peek();
+                if (false == level.hasNext()) {
+                    stack.pop().close();
+                    continue;
+                }
+                final Path child = level.next();
+                final File file = child.toFile();
+                if (Files.isDirectory(child)) {
+                    final Level childLevel = Level.open(child, level.path + file.getName() + "/", sorted);
+                    if (childLevel.hasNext()) {
+                        stack.push(childLevel);
+                    } else {
+                        childLevel.close();
+                        visitor.visitDir(file, childLevel.path);
+                    }
+                } else {
+                    visitor.visitFile(file, level.path + file.getName());
+                }
+            }
+        } finally {
+            while (false == stack.isEmpty()) {
+                stack.pop().close();
+            }
+        }
+    }
+
+    /**
+     * 条目访问者
+     */
+    public interface Visitor {
+
+        /**
+         * 访问文件
+         *
+         * @param file 文件
+         * @param path 压缩包内的路径
+         * @throws IOException IO异常
+         */
+        void visitFile(File file, String path) throws IOException;
+
+        /**
+         * 访问空目录
+         *
+         * @param dir  目录
+         * @param path 压缩包内的路径，以/结尾
+         * @throws IOException IO异常
+         */
+        void visitDir(File dir, String path) throws IOException;
+
+        /**
+         * 访问内存数据
+         *
+         * @param data 数据
+         * @param path 压缩包内的路径
+         * @param time 修改时间
+         * @throws IOException IO异常
+         */
+        void visitBytes(byte[] data, String path, long time) throws IOException;
+    }
+
+    /**
+     * 遍历中的一层目录
+     */
+    private static class Level implements Closeable {
+        private final String path;
+        private final DirectoryStream<Path> stream;
+        private final Iterator<Path> children;
+
+        private Level(String path, DirectoryStream<Path> stream, Iterator<Path> children) {
+            this.path = path;
+            this.stream = stream;
+            this.children = children;
+        }
+
+        static Level open(Path dir, String path, boolean sorted) throws IOException {
+            final DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+            if (false == sorted) {
+                return new Level(path, stream, stream.iterator());
+            }
+            final List<Path> children = new ArrayList<>();
+            try {
+                for (Path child : stream) {
+                    children.add(child);
+                }
+            } finally {
+                stream.close();
+            }
+            children.sort(Comparator.comparing(child -> child.getFileName().toString()));
+            return new Level(path, null, children.iterator());
+        }
+
+        boolean hasNext() {
+            return children.hasNext();
+        }
+
+        Path next() {
+            return children.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null != stream) {
+                stream.close();
+            }
+        }
+    }
+
+    private static class Source {
+        private final File file;
+        private final String path;
+        private final byte[] data;
+        private final long time;
+
+        Source(File file, String path, byte[] data, long time) {
+            this.file = file;
+            this.path = path;
+            this.data = data;
+            this.time = time;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.uyoqu.framework.maven.plugin.starter.utils;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.FastByteArrayOutputStream;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.zip.*;
 
 public class ZipUtil {
@@ -15,6 +25,16 @@ public class ZipUtil {
      */
     private static final Charset DEFAULT_CHARSET = Charset.defaultCharset();
 
+    /**
+     * gzip头部：不含文件名，修改时间为0，操作系统未知，与{@link ParallelGzipOutputStream}一致
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final int GZIP_FHCRC = 2;
+    private static final int GZIP_FEXTRA = 4;
+    private static final int GZIP_FNAME = 8;
+    private static final int GZIP_FCOMMENT = 16;
+
     /**
      * 打包到当前目录，使用默认编码UTF-8
      *
@@ -155,6 +175,76 @@ public class ZipUtil {
         return zipFile;
     }
 
+    /**
+     * 对目录进行压缩，不包含被打包目录<br>
+     * 配置的线程数大于1时使用多线程并行压缩，各条目顺序与串行压缩一致，输出与线程数无关；
+     * 单线程且未配置压缩策略、未开启可重现及增量打包时退化为原有的串行压缩
+     *
+     * @param zipFile 生成的Zip文件，包括文件名
+     * @param srcDir  要压缩的目录
+     * @param config  压缩配置
+     * @return 压缩文件
+     * @see #zip(File, ZipSources, ZipConfig)
+     */
+    public static File zip(File zipFile, File srcDir, ZipConfig config) {
+        if (config.getThreads() <= 1 && false == config.isIncremental()
+                && null == config.getCompressionPolicy() && null == config.getReproducibleTime()) {
+            return zip(zipFile, config.getCharset(), false, srcDir);
+        }
+        validateFiles(zipFile, srcDir);
+        return zip(zipFile, ZipSources.create().addDir(srcDir, ""), config);
+    }
+
+    /**
+     * 将多个内容来源一次性压缩为一个压缩包，使用{@link ParallelZipCreator}并行压缩<br>
+     * 开启增量打包时，在压缩包旁维护指纹清单（见{@link ZipFingerprints}），未变化的文件直接复制上一次的压缩数据，
+     * 所有文件均未变化时保留原压缩包不做任何写入
+     *
+     * @param zipFile 生成的Zip文件，包括文件名
+     * @param sources 内容来源
+     * @param config  压缩配置
+     * @return 压缩文件
+     */
+    public static File zip(File zipFile, ZipSources sources, ZipConfig config) {
+        final File missing = sources.findMissing();
+        if (null != missing) {
+            throw new RuntimeException(String.format("File %s not exist!", missing.getAbsolutePath()));
+        }
+
+        try {
+            if (false == config.isIncremental()) {
+                zip(zipFile, sources, config, null, null, null);
+                return zipFile;
+            }
+            final File manifest = ZipFingerprints.manifestOf(zipFile);
+            final ZipFingerprints previous = ZipFingerprints.load(manifest, zipFile, config.signature());
+            final ZipFingerprints current = ZipFingerprints.scan(sources, config.signature(), config.isHashContent());
+            if (false == previous.isEmpty() && previous.sameEntries(current)) {
+                return zipFile;
+            }
+            if (previous.isEmpty()) {
+                zip(zipFile, sources, config, null, null, null);
+            } else {
+                // 先写入临时文件，旧压缩包在复制完原始压缩数据后才被替换
+                final File tempFile = new File(zipFile.getParentFile(), zipFile.getName() + ".tmp");
+                try {
+                    try (org.apache.commons.compress.archivers.zip.ZipFile previousZip =
+                                 new org.apache.commons.compress.archivers.zip.ZipFile(zipFile, config.getCharset().name())) {
+                        zip(tempFile, sources, config, previousZip, previous, current);
+                    }
+                    Files.move(tempFile.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    // 替换成功后临时文件已不存在，写入或替换中途失败时删除，不留下不完整的临时文件
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            }
+            current.save(manifest, zipFile);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return zipFile;
+    }
+
     // ---------------------------------------------------------------------------------------------- Unzip
 
     /**
@@ -244,7 +334,7 @@ public class ZipUtil {
     }
 
     /**
-     * 解压
+     * 解压，支持Zip64扩展，条目逐个以流的方式写出
      *
      * @param zipFile zip文件
      * @param outFile 解压到的目录
@@ -282,6 +372,71 @@ public class ZipUtil {
         return outFile;
     }
 
+    /**
+     * 多线程解压，目录结构由调用线程一次性创建，文件内容由线程池并行写出，同样防止slip漏洞
+     *
+     * @param zipFile zip文件
+     * @param outFile 解压到的目录
+     * @param charset 编码
+     * @param threads 写出线程数，小于等于0时使用CPU核数
+     * @return 解压的目录
+     * @see ParallelExtractor
+     */
+    public static File unzip(File zipFile, File outFile, Charset charset, int threads) {
+        charset = (null == charset) ? DEFAULT_CHARSET : charset;
+
+        try (ZipFile zipFileObj = new ZipFile(zipFile, charset);
+             ParallelExtractor extractor = new ParallelExtractor(outFile, threads, ParallelExtractor.DEFAULT_MEMORY_BUDGET)) {
+            final Enumeration<? extends ZipEntry> em = zipFileObj.entries();
+            while (em.hasMoreElements()) {
+                final ZipEntry zipEntry = em.nextElement();
+                if (zipEntry.isDirectory()) {
+                    extractor.mkdirs(zipEntry.getName());
+                } else {
+                    extractor.write(extractor.resolve(zipEntry.getName()),
+                            () -> zipFileObj.getInputStream(zipEntry), zipEntry.getSize());
+                }
+            }
+            extractor.finish();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return outFile;
+    }
+
+    /**
+     * 从流中顺序解压，只读取各条目的本地文件头，不读取压缩包目录<br>
+     * 内存占用与条目数量及压缩包大小无关，适用于超大压缩包或不可随机读取的输入，支持Zip64扩展
+     *
+     * @param in      压缩包输入流，不关闭
+     * @param outFile 解压到的目录
+     * @param charset 编码
+     * @return 解压的目录
+     */
+    public static File unzip(InputStream in, File outFile, Charset charset) {
+        charset = (null == charset) ? DEFAULT_CHARSET : charset;
+        final ZipArchiveInputStream zin = new ZipArchiveInputStream(in, charset.name(), true, true);
+        try {
+            ZipArchiveEntry zipEntry;
+            File outItemFile;
+            while ((zipEntry = zin.getNextZipEntry()) != null) {
+                //FileUtil.file会检查slip漏洞，漏洞说明见http://blog.nsfocus.net/zip-slip-2/
+                outItemFile = FileUtil.file(outFile, zipEntry.getName());
+                if (zipEntry.isDirectory()) {
+                    outItemFile.mkdirs();
+                } else {
+                    FileUtil.touch(outItemFile);
+                    try (OutputStream out = new FileOutputStream(outItemFile)) {
+                        IoUtil.copy(zin, out, IoUtil.bufferSize(zipEntry.getSize()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return outFile;
+    }
+
     /**
      * 从Zip文件中提取指定的文件为bytes
      *
@@ -320,7 +475,8 @@ public class ZipUtil {
     }
 
     /**
-     * 从Zip文件中提取指定的文件为bytes
+     * 从Zip文件中提取指定的文件为bytes<br>
+     * 通过{@link ZipIndex}按名称直接定位条目，压缩包目录解析后缓存，同一压缩包的重复读取不再重新解析
      *
      * @param zipFile Zip文件
      * @param charset 编码
@@ -328,27 +484,20 @@ public class ZipUtil {
      * @return 文件内容bytes
      * @since 4.1.8
      */
-    @SuppressWarnings("unchecked")
     public static byte[] unzipFileBytes(File zipFile, Charset charset, String name) {
-        ZipFile zipFileObj = null;
-        try {
-            zipFileObj = new ZipFile(zipFile, charset);
-            final Enumeration<ZipEntry> em = (Enumeration<ZipEntry>) zipFileObj.entries();
-            ZipEntry zipEntry = null;
-            while (em.hasMoreElements()) {
-                zipEntry = em.nextElement();
-                if (zipEntry.isDirectory()) {
-                    continue;
-                } else if (name.equals(zipEntry.getName())) {
-                    return IoUtil.readBytes(zipFileObj.getInputStream(zipEntry));
-                }
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            IoUtil.close(zipFileObj);
-        }
-        return null;
+        return ZipIndex.open(zipFile, charset).read(name);
+    }
+
+    /**
+     * 从Zip文件中批量提取指定的文件，压缩包只打开一次
+     *
+     * @param zipFile Zip文件
+     * @param charset 编码
+     * @param names   文件名，如果存在于子文件夹中，此文件名必须包含目录名，例如images/aaa.txt
+     * @return 文件名 -> 文件内容bytes，不存在的文件不包含在结果中
+     */
+    public static Map<String, byte[]> unzipFileBytes(File zipFile, Charset charset, Collection<String> names) {
+        return ZipIndex.open(zipFile, charset).read(names);
     }
 
     // ----------------------------------------------------------------------------- Gzip
@@ -373,20 +522,9 @@ public class ZipUtil {
      * @ IO异常
      */
     public static byte[] gzip(byte[] val) {
-        FastByteArrayOutputStream bos = new FastByteArrayOutputStream(val.length);
-        GZIPOutputStream gos = null;
-        try {
-            gos = new GZIPOutputStream(bos);
-            gos.write(val, 0, val.length);
-            gos.finish();
-            gos.flush();
-            val = bos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            IoUtil.close(gos);
-        }
-        return val;
+        final FastByteArrayOutputStream bos = new FastByteArrayOutputStream(Math.max(64, val.length / 2));
+        gzip(new ByteArrayInputStream(val), bos, Deflater.DEFAULT_COMPRESSION);
+        return bos.toByteArrayUnsafe();
     }
 
     /**
@@ -397,21 +535,55 @@ public class ZipUtil {
      * @ IO异常
      */
     public static byte[] gzip(File file) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream((int) file.length());
-        GZIPOutputStream gos = null;
-        BufferedInputStream in;
+        final FastByteArrayOutputStream bos = new FastByteArrayOutputStream((int) Math.max(64, Math.min(file.length() / 2, Integer.MAX_VALUE)));
+        BufferedInputStream in = null;
         try {
-            gos = new GZIPOutputStream(bos);
             in = FileUtil.getInputStream(file);
-            IoUtil.copy(in, gos);
-            return bos.toByteArray();
+            gzip(in, bos, Deflater.DEFAULT_COMPRESSION);
+        } finally {
+            IoUtil.close(in);
+        }
+        return bos.toByteArrayUnsafe();
+    }
+
+    /**
+     * 流式Gzip压缩，内存占用与数据大小无关，使用对象池中的Deflater，不关闭输入输出流
+     *
+     * @param in    被压缩的数据
+     * @param out   Gzip数据输出
+     * @param level 压缩级别
+     * @return 压缩前的数据长度
+     */
+    public static long gzip(InputStream in, OutputStream out, int level) {
+        final Deflater deflater = ZlibPool.deflater(level, true);
+        try {
+            final CRC32 crc = new CRC32();
+            out.write(GZIP_HEADER);
+            final long size = deflate(in, out, deflater, crc);
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) size);
+            out.flush();
+            return size;
         } catch (IOException e) {
             throw new RuntimeException(e);
         } finally {
-            IoUtil.close(gos);
+            ZlibPool.release(deflater, level, true);
         }
     }
 
+    /**
+     * 流式Gzip压缩，不关闭通道
+     *
+     * @param in    被压缩的数据
+     * @param out   Gzip数据输出
+     * @param level 压缩级别
+     * @return 压缩前的数据长度
+     * @see #gzip(InputStream, OutputStream, int)
+     */
+    public static long gzip(ReadableByteChannel in, WritableByteChannel out, int level) {
+        return gzip(Channels.newInputStream(in), Channels.newOutputStream(out), level);
+    }
+
     /**
      * Gzip解压缩处理
      *
@@ -432,19 +604,58 @@ public class ZipUtil {
      * @ IO异常
      */
     public static byte[] unGzip(byte[] buf) {
-        GZIPInputStream gzi = null;
-        ByteArrayOutputStream bos = null;
+        final FastByteArrayOutputStream bos = new FastByteArrayOutputStream(Math.max(64, buf.length * 2));
+        unGzip(new ByteArrayInputStream(buf), bos);
+        return bos.toByteArrayUnsafe();
+    }
+
+    /**
+     * 流式Gzip解压，支持多个gzip成员首尾相接的数据，并校验每个成员的CRC及长度，使用对象池中的Inflater，不关闭输入输出流
+     *
+     * @param in  Gzip数据
+     * @param out 解压后的数据输出
+     * @return 解压后的数据长度
+     */
+    public static long unGzip(InputStream in, OutputStream out) {
+        final Inflater inflater = ZlibPool.inflater(true);
         try {
-            gzi = new GZIPInputStream(new ByteArrayInputStream(buf));
-            bos = new ByteArrayOutputStream(buf.length);
-            IoUtil.copy(gzi, bos);
-            buf = bos.toByteArray();
+            final PushbackInputStream pin = new PushbackInputStream(in, IoUtil.DEFAULT_LARGE_BUFFER_SIZE);
+            long total = 0;
+            int first = pin.read();
+            while (first != IoUtil.EOF) {
+                readGzipHeader(pin, first);
+                final CRC32 crc = new CRC32();
+                final long size = inflate(pin, out, inflater, crc);
+                if (readIntLE(pin) != (int) crc.getValue() || readIntLE(pin) != (int) size) {
+                    throw new ZipException("Corrupt GZIP trailer");
+                }
+                total += size;
+                inflater.reset();
+                first = pin.read();
+                if (first != IoUtil.EOF && first != 0x1f) {
+                    // 与GZIPInputStream一致，忽略最后一个成员之后的非gzip数据
+                    break;
+                }
+            }
+            out.flush();
+            return total;
         } catch (IOException e) {
             throw new RuntimeException(e);
         } finally {
-            IoUtil.close(gzi);
+            ZlibPool.release(inflater, true);
         }
-        return buf;
+    }
+
+    /**
+     * 流式Gzip解压，不关闭通道
+     *
+     * @param in  Gzip数据
+     * @param out 解压后的数据输出
+     * @return 解压后的数据长度
+     * @see #unGzip(InputStream, OutputStream)
+     */
+    public static long unGzip(ReadableByteChannel in, WritableByteChannel out) {
+        return unGzip(Channels.newInputStream(in), Channels.newOutputStream(out));
     }
 
     // ----------------------------------------------------------------------------- Zlib
@@ -471,15 +682,15 @@ public class ZipUtil {
      * @since 4.1.4
      */
     public static byte[] zlib(File file, int level) {
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream((int) Math.max(64, Math.min(file.length() / 2, Integer.MAX_VALUE)));
         BufferedInputStream in = null;
         try {
             in = FileUtil.getInputStream(file);
-            deflater(in, out, level);
+            zlib(in, out, level);
         } finally {
             IoUtil.close(in);
         }
-        return out.toByteArray();
+        return out.toByteArrayUnsafe();
     }
 
     /**
@@ -491,10 +702,44 @@ public class ZipUtil {
      * @since 4.1.4
      */
     public static byte[] zlib(byte[] buf, int level) {
-        final ByteArrayInputStream in = new ByteArrayInputStream(buf);
-        final ByteArrayOutputStream out = new ByteArrayOutputStream(buf.length);
-        deflater(in, out, level);
-        return out.toByteArray();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream(Math.max(64, buf.length / 2));
+        zlib(new ByteArrayInputStream(buf), out, level);
+        return out.toByteArrayUnsafe();
+    }
+
+    /**
+     * 流式Zlib压缩，输出与{@link #zlib(byte[], int)}格式相同（不带zlib头及校验和的deflate数据），
+     * 内存占用与数据大小无关，使用对象池中的Deflater，不关闭输入输出流
+     *
+     * @param in    被压缩的数据
+     * @param out   压缩数据输出
+     * @param level 压缩级别，0~9
+     * @return 压缩前的数据长度
+     */
+    public static long zlib(InputStream in, OutputStream out, int level) {
+        final Deflater deflater = ZlibPool.deflater(level, true);
+        try {
+            final long size = deflate(in, out, deflater, null);
+            out.flush();
+            return size;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ZlibPool.release(deflater, level, true);
+        }
+    }
+
+    /**
+     * 流式Zlib压缩，不关闭通道
+     *
+     * @param in    被压缩的数据
+     * @param out   压缩数据输出
+     * @param level 压缩级别，0~9
+     * @return 压缩前的数据长度
+     * @see #zlib(InputStream, OutputStream, int)
+     */
+    public static long zlib(ReadableByteChannel in, WritableByteChannel out, int level) {
+        return zlib(Channels.newInputStream(in), Channels.newOutputStream(out), level);
     }
 
     /**
@@ -517,10 +762,41 @@ public class ZipUtil {
      * @since 4.1.4
      */
     public static byte[] unZlib(byte[] buf) {
-        final ByteArrayInputStream in = new ByteArrayInputStream(buf);
-        final ByteArrayOutputStream out = new ByteArrayOutputStream(buf.length);
-        inflater(in, out);
-        return out.toByteArray();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream(Math.max(64, buf.length * 2));
+        unZlib(new ByteArrayInputStream(buf), out);
+        return out.toByteArrayUnsafe();
+    }
+
+    /**
+     * 流式Zlib解压，输入为{@link #zlib(byte[], int)}格式的数据，使用对象池中的Inflater，不关闭输入输出流
+     *
+     * @param in  压缩数据
+     * @param out 解压后的数据输出
+     * @return 解压后的数据长度
+     */
+    public static long unZlib(InputStream in, OutputStream out) {
+        final Inflater inflater = ZlibPool.inflater(true);
+        try {
+            final long size = inflate(new PushbackInputStream(in, IoUtil.DEFAULT_LARGE_BUFFER_SIZE), out, inflater, null);
+            out.flush();
+            return size;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ZlibPool.release(inflater, true);
+        }
+    }
+
+    /**
+     * 流式Zlib解压，不关闭通道
+     *
+     * @param in  压缩数据
+     * @param out 解压后的数据输出
+     * @return 解压后的数据长度
+     * @see #unZlib(InputStream, OutputStream)
+     */
+    public static long unZlib(ReadableByteChannel in, WritableByteChannel out) {
+        return unZlib(Channels.newInputStream(in), Channels.newOutputStream(out));
     }
 
     // ---------------------------------------------------------------------------------------------- Private method start
@@ -542,36 +818,83 @@ public class ZipUtil {
     }
 
     /**
-     * 递归压缩文件夹<br>
+     * 压缩文件或文件夹<br>
      * srcRootDir决定了路径截取的位置，例如：<br>
-     * file的路径为d:/a/b/c/d.txt，srcRootDir为d:/a/b，则压缩后的文件与目录为结构为c/d.txt
+     * file的路径为d:/a/b/c/d.txt，srcRootDir为d:/a/b，则压缩后的文件与目录为结构为c/d.txt<br>
+     * 目录通过{@link ZipSources}以显式栈遍历，不递归调用，也不一次性列出整个目录
      *
      * @param out        压缩文件存储对象
      * @param srcRootDir 被压缩的文件夹根目录
-     * @param file       当前递归压缩的文件或目录对象
+     * @param file       压缩的文件或目录对象
      * @ IO异常
      */
-    private static void zip(File file, String srcRootDir, ZipOutputStream out) {
+    private static void zip(File file, String srcRootDir, final ZipOutputStream out) {
         if (file == null) {
             return;
         }
 
         final String subPath = FileUtil.subPath(srcRootDir, file); // 获取文件相对于压缩文件夹根目录的子路径
-        if (file.isDirectory()) {// 如果是目录，则压缩压缩目录中的文件或子目录
-            final File[] files = file.listFiles();
-            if ((files == null || files.length == 0) && StringUtils.isNotEmpty(subPath)) {
-                // 加入目录，只有空目录时才加入目录，非空时会在创建文件时自动添加父级目录
-                addDir(subPath, out);
+        final ZipSources sources = file.isDirectory()
+                ? ZipSources.create().addDir(file, subPath) : ZipSources.create().addFile(file, subPath);
+        try {
+            sources.walk(false, new ZipSources.Visitor() {
+                @Override
+                public void visitFile(File file, String path) {
+                    addFile(file, path, out);
+                }
+
+                @Override
+                public void visitDir(File dir, String path) {
+                    addDir(path, out);
+                }
+
+                @Override
+                public void visitBytes(byte[] data, String path, long time) {
+                    addFile(new ByteArrayInputStream(data), path, out);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 使用{@link ParallelZipCreator}压缩内容来源
+     *
+     * @param zipFile     生成的Zip文件
+     * @param sources     内容来源
+     * @param config      压缩配置
+     * @param previousZip 增量打包时上一次的压缩包，为null时全量压缩
+     * @param previous    上一次压缩包的指纹清单
+     * @param current     本次内容的指纹清单
+     * @throws IOException IO异常
+     */
+    private static void zip(File zipFile, ZipSources sources, ZipConfig config,
+                            org.apache.commons.compress.archivers.zip.ZipFile previousZip,
+                            ZipFingerprints previous, ZipFingerprints current) throws IOException {
+        FileUtil.touch(zipFile);
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(zipFile);
+             ParallelZipCreator creator = new ParallelZipCreator(out, policyOf(config), config.getThreads(), config.getMemoryBudget())) {
+            out.setEncoding(config.getCharset().name());
+            out.setUseZip64(config.getZip64Mode());
+            creator.setReport(config.getReport());
+            creator.setCache(config.getDeflateCache());
+            if (null != previousZip) {
+                creator.reuseFrom(previousZip, previous, current);
             }
-            // 压缩目录下的子文件或目录
-            for (File childFile : files) {
-                zip(childFile, srcRootDir, out);
+            final boolean sorted = null != config.getReproducibleTime();
+            if (sorted) {
+                creator.setFixedTime(config.getReproducibleTime());
             }
-        } else {// 如果是文件或其它符号，则直接压缩该文件
-            addFile(file, subPath, out);
+            sources.walk(sorted, creator);
+            creator.finish();
         }
     }
 
+    private static CompressionPolicy policyOf(ZipConfig config) {
+        return null == config.getCompressionPolicy() ? CompressionPolicy.deflateAll() : config.getCompressionPolicy();
+    }
+
     /**
      * 添加文件到压缩包
      *
@@ -707,8 +1030,9 @@ public class ZipUtil {
         OutputStream out = null;
         try {
             in = zipFile.getInputStream(zipEntry);
-            out = FileUtil.getOutputStream(outItemFile);
-            IoUtil.copy(in, out);
+            // 直接写文件流，缓存大小按条目大小自适应，不再经过BufferedOutputStream二次缓存
+            out = new FileOutputStream(outItemFile);
+            IoUtil.copy(in, out, IoUtil.bufferSize(zipEntry.getSize()));
         } finally {
             IoUtil.close(out);
             IoUtil.close(in);
@@ -716,26 +1040,136 @@ public class ZipUtil {
     }
 
     /**
-     * 将Zlib流解压到out中
+     * 将数据压缩到out中，完成后Deflater处于finished状态
      *
-     * @param in  zlib数据流
-     * @param out 输出
+     * @param in       数据
+     * @param out      输出
+     * @param deflater Deflater
+     * @param crc      同时计算原始数据的CRC，为null时不计算
+     * @return 原始数据长度
+     * @throws IOException IO异常
      */
-    private static void inflater(InputStream in, OutputStream out) {
-        final InflaterOutputStream ios = (out instanceof InflaterOutputStream) ? (InflaterOutputStream) out : new InflaterOutputStream(out, new Inflater(true));
-        IoUtil.copy(in, ios);
+    private static long deflate(InputStream in, OutputStream out, Deflater deflater, CRC32 crc) throws IOException {
+        final byte[] input = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+        final byte[] output = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+        long size = 0;
+        int n;
+        while ((n = in.read(input)) != IoUtil.EOF) {
+            if (null != crc) {
+                crc.update(input, 0, n);
+            }
+            size += n;
+            deflater.setInput(input, 0, n);
+            while (false == deflater.needsInput()) {
+                out.write(output, 0, deflater.deflate(output));
+            }
+        }
+        deflater.finish();
+        while (false == deflater.finished()) {
+            out.write(output, 0, deflater.deflate(output));
+        }
+        return size;
     }
 
     /**
-     * 将普通数据流压缩成zlib到out中
+     * 将压缩数据解压到out中，读到压缩数据末尾为止，多读的数据退回输入流
      *
-     * @param in    zlib数据流
-     * @param out   输出
-     * @param level 压缩级别，0~9
+     * @param in       压缩数据
+     * @param out      输出
+     * @param inflater Inflater
+     * @param crc      同时计算解压后数据的CRC，为null时不计算
+     * @return 解压后的数据长度
+     * @throws IOException IO异常
      */
-    private static void deflater(InputStream in, OutputStream out, int level) {
-        final DeflaterOutputStream ios = (out instanceof DeflaterOutputStream) ? (DeflaterOutputStream) out : new DeflaterOutputStream(out, new Deflater(level, true));
-        IoUtil.copy(in, ios);
+    private static long inflate(PushbackInputStream in, OutputStream out, Inflater inflater, CRC32 crc) throws IOException {
+        final byte[] input = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+        final byte[] output = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+        long size = 0;
+        int length = 0;
+        try {
+            while (false == inflater.finished()) {
+                if (inflater.needsInput()) {
+                    length = in.read(input);
+                    if (length == IoUtil.EOF) {
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    }
+                    inflater.setInput(input, 0, length);
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Preset dictionary is not supported");
+                }
+                final int n = inflater.inflate(output);
+                if (n > 0) {
+                    if (null != crc) {
+                        crc.update(output, 0, n);
+                    }
+                    out.write(output, 0, n);
+                    size += n;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+        final int remaining = inflater.getRemaining();
+        if (remaining > 0) {
+            in.unread(input, length - remaining, remaining);
+        }
+        return size;
+    }
+
+    /**
+     * 读取并跳过gzip头部
+     */
+    private static void readGzipHeader(InputStream in, int first) throws IOException {
+        if (first != 0x1f || readByte(in) != 0x8b) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readByte(in) != Deflater.DEFLATED) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flags = readByte(in);
+        // 修改时间、额外标志、操作系统
+        for (int i = 0; i < 6; i++) {
+            readByte(in);
+        }
+        if ((flags & GZIP_FEXTRA) != 0) {
+            final int length = readByte(in) | (readByte(in) << 8);
+            for (int i = 0; i < length; i++) {
+                readByte(in);
+            }
+        }
+        if ((flags & GZIP_FNAME) != 0) {
+            while (readByte(in) != 0) {
+                // 跳过文件名
+            }
+        }
+        if ((flags & GZIP_FCOMMENT) != 0) {
+            while (readByte(in) != 0) {
+                // 跳过注释
+            }
+        }
+        if ((flags & GZIP_FHCRC) != 0) {
+            readByte(in);
+            readByte(in);
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        final int b = in.read();
+        if (b == IoUtil.EOF) {
+            throw new EOFException("Unexpected end of GZIP input stream");
+        }
+        return b;
+    }
+
+    private static int readIntLE(InputStream in) throws IOException {
+        return readByte(in) | (readByte(in) << 8) | (readByte(in) << 16) | (readByte(in) << 24);
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
     }
     // ---------------------------------------------------------------------------------------------- Private method end
 
@@ -0,0 +1,108 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Deflater}及{@link Inflater}对象池<br>
+ * 每个Deflater、Inflater都持有一份本地zlib状态（压缩时约数百KB），频繁新建依赖finalize回收，
+ * 高频的小数据压缩会造成本地内存抖动。对象池按压缩级别及是否nowrap分别缓存归还的对象，归还时reset，
+ * 空闲对象超过上限时直接end释放本地内存。线程安全。
+ */
+public class ZlibPool {
+
+    /**
+     * 每种配置缓存的空闲对象上限
+     */
+    private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final Map<Integer, Pool<Deflater>> DEFLATERS = new ConcurrentHashMap<>();
+
+    private static final Pool<Inflater> INFLATERS = new Pool<>();
+
+    private static final Pool<Inflater> NOWRAP_INFLATERS = new Pool<>();
+
+    /**
+     * 借出Deflater，使用完毕后必须通过{@link #release(Deflater, int, boolean)}以相同的参数归还
+     *
+     * @param level  压缩级别
+     * @param nowrap 是否不写zlib头及校验和（gzip、zip使用）
+     * @return Deflater
+     */
+    public static Deflater deflater(int level, boolean nowrap) {
+        final Deflater deflater = deflaters(level, nowrap).poll();
+        return null == deflater ? new Deflater(level, nowrap) : deflater;
+    }
+
+    /**
+     * 归还Deflater
+     *
+     * @param deflater Deflater
+     * @param level    借出时的压缩级别
+     * @param nowrap   借出时的nowrap
+     */
+    public static void release(Deflater deflater, int level, boolean nowrap) {
+        deflater.reset();
+        if (false == deflaters(level, nowrap).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 借出Inflater，使用完毕后必须通过{@link #release(Inflater, boolean)}以相同的参数归还
+     *
+     * @param nowrap 是否为不带zlib头及校验和的原始deflate数据
+     * @return Inflater
+     */
+    public static Inflater inflater(boolean nowrap) {
+        final Inflater inflater = (nowrap ? NOWRAP_INFLATERS : INFLATERS).poll();
+        return null == inflater ? new Inflater(nowrap) : inflater;
+    }
+
+    /**
+     * 归还Inflater
+     *
+     * @param inflater Inflater
+     * @param nowrap   借出时的nowrap
+     */
+    public static void release(Inflater inflater, boolean nowrap) {
+        inflater.reset();
+        if (false == (nowrap ? NOWRAP_INFLATERS : INFLATERS).offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    private static Pool<Deflater> deflaters(int level, boolean nowrap) {
+        return DEFLATERS.computeIfAbsent(nowrap ? level : -level - 100, key -> new Pool<>());
+    }
+
+    /**
+     * 有上限的空闲对象队列
+     */
+    private static class Pool<T> {
+        private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        T poll() {
+            final T t = idle.poll();
+            if (null != t) {
+                size.decrementAndGet();
+            }
+            return t;
+        }
+
+        boolean offer(T t) {
+            if (size.incrementAndGet() > MAX_IDLE) {
+                size.decrementAndGet();
+                return false;
+            }
+            idle.offer(t);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.uyoqu.framework.maven.plugin.starter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static com.uyoqu.framework.maven.plugin.starter.MojoTestSupport.method;
+import static com.uyoqu.framework.maven.plugin.starter.MojoTestSupport.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 启动脚本在部署主机上按记录还原classpath中jar的修改时间（GNU及BSD命令），无法还原时不使用AppCDS归档
+ */
+public class BinCreateMojoCdsScriptTest {
+
+    private static final long TIME = 1577836800L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File deployDir;
+
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        deployDir = temp.newFolder("demo");
+        assertTrue(new File(deployDir, "bin").mkdirs());
+        assertTrue(new File(deployDir, "WEB-INF/lib").mkdirs());
+        jar = new File(deployDir, "WEB-INF/lib/a-1.0.jar");
+        Files.write(jar.toPath(), new byte[]{1});
+        write("bin/app.jsa", "archive");
+        write("bin/app.jsa.jdk", "jdk");
+    }
+
+    @Test
+    public void restoresRecordedTimes() throws Exception {
+        recordTimes();
+        final String output = run(null);
+        assertEquals(TIME * 1000, jar.lastModified());
+        assertTrue(output, output.contains("CDS_OPTS=-XX:SharedArchiveFile="));
+    }
+
+    @Test
+    public void restoresRecordedTimesWithBsdTools() throws Exception {
+        recordTimes();
+        // 模拟macOS、BSD：stat不支持-c，touch不支持-d
+        final File tools = temp.newFolder("bsd");
+        write(new File(tools, "stat"), "#!/bin/sh\n"
+                + "[ \"$1\" = \"-f\" ] && [ \"$2\" = \"%m\" ] || exit 1\n"
+                + "exec /usr/bin/env -i PATH=/usr/bin:/bin stat -c %Y \"$3\"\n");
+        write(new File(tools, "touch"), "#!/bin/sh\n"
+                + "for arg in \"$@\"; do [ \"$arg\" = \"-d\" ] && exit 1; done\n"
+                + "exec /usr/bin/env PATH=/usr/bin:/bin touch \"$@\"\n");
+        assertTrue(new File(tools, "stat").setExecutable(true) && new File(tools, "touch").setExecutable(true));
+        final String output = run(tools);
+        assertEquals(TIME * 1000, jar.lastModified());
+        assertTrue(output, output.contains("CDS_OPTS=-XX:SharedArchiveFile="));
+    }
+
+    @Test
+    public void skipsArchiveWhenTimesCannotBeRestored() throws Exception {
+        write("bin/app.jsa.mtimes", "#bin-cds-mtimes\t2\n" + TIME + " 202001010000.00 WEB-INF/lib/missing.jar\n");
+        final String output = run(null);
+        assertTrue(output, output.contains("WARN: " + deployDir.getAbsolutePath() + "/WEB-INF/lib/missing.jar"));
+        assertTrue(output, output.endsWith("CDS_OPTS="));
+        assertFalse(new File(deployDir, "WEB-INF/lib/missing.jar").exists());
+    }
+
+    /**
+     * 按打包时的方式记录修改时间，再模拟部署主机解压后的时间
+     */
+    private void recordTimes() throws Exception {
+        assertTrue(jar.setLastModified(TIME * 1000));
+        method("writeJarTimes", File.class, File.class, List.class).invoke(new BinCreateMojo(), new File(deployDir, "bin/app.jsa.mtimes"), deployDir,
+                Collections.singletonList(jar));
+        assertTrue(jar.setLastModified((TIME + 8 * 3600) * 1000));
+    }
+
+    /**
+     * 在非UTC时区执行脚本片段
+     *
+     * @param tools 放在PATH最前面的命令目录，可以为null
+     */
+    private String run(File tools) throws Exception {
+        final File script = new File(temp.getRoot(), "cds.sh");
+        write(script, "BIN_DIR=" + new File(deployDir, "bin").getAbsolutePath() + "\n"
+                + "DEPLOY_DIR=" + deployDir.getAbsolutePath() + "\n"
+                + "JAVA_VERSION_INFO=jdk\n"
+                + cdsScript() + "\n"
+                + "echo \"CDS_OPTS=$CDS_OPTS\"\n");
+        final ProcessBuilder builder = new ProcessBuilder("sh", script.getAbsolutePath()).redirectErrorStream(true);
+        builder.environment().put("TZ", "Asia/Shanghai");
+        if (null != tools) {
+            builder.environment().put("PATH", tools.getAbsolutePath() + File.pathSeparator + builder.environment().get("PATH"));
+        }
+        final Process process = builder.start();
+        final String output = new String(readAll(process), StandardCharsets.UTF_8).trim();
+        assertEquals(output, 0, process.waitFor());
+        return output;
+    }
+
+    private static byte[] readAll(Process process) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int n;
+        while ((n = process.getInputStream().read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static String cdsScript() throws Exception {
+        final BinCreateMojo mojo = new BinCreateMojo();
+        set(mojo, "appCds", true);
+        set(mojo, "classpathMode", "jar");
+        return (String) method("formatCdsString").invoke(mojo);
+    }
+
+    private void write(String path, String content) throws Exception {
+        write(new File(deployDir, path), content);
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
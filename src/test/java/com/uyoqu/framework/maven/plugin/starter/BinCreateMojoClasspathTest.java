@@ -0,0 +1,54 @@
+package com.uyoqu.framework.maven.plugin.starter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static com.uyoqu.framework.maven.plugin.starter.MojoTestSupport.method;
+import static com.uyoqu.framework.maven.plugin.starter.MojoTestSupport.set;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * pathing jar的内容只由jar列表及outputTimestamp决定，与打包时间及时区无关
+ */
+public class BinCreateMojoClasspathTest {
+
+    private static final List<String> JARS = Arrays.asList("a-1.0.jar", "b-2.0.jar");
+
+    @Test
+    public void pathingJarIsDeterministicWithoutOutputTimestamp() throws Exception {
+        final byte[] shanghai = render(null, "Asia/Shanghai");
+        assertArrayEquals(shanghai, render(null, "America/New_York"));
+        assertArrayEquals(shanghai, render(null, "UTC"));
+    }
+
+    @Test
+    public void pathingJarUsesOutputTimestamp() throws Exception {
+        final byte[] shanghai = render("2020-01-01T00:00:00Z", "Asia/Shanghai");
+        assertArrayEquals(shanghai, render("2020-01-01T00:00:00Z", "America/New_York"));
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(shanghai))) {
+            final ZipEntry entry = in.getNextEntry();
+            assertEquals(JarFile.MANIFEST_NAME, entry.getName());
+        }
+    }
+
+    private static byte[] render(String outputTimestamp, String timeZone) throws Exception {
+        final TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+            final BinCreateMojo mojo = new BinCreateMojo();
+            set(mojo, "classpathMode", "jar");
+            set(mojo, "outputTimestamp", outputTimestamp);
+            return (byte[]) method("renderClasspathFile", List.class).invoke(mojo, JARS);
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+}
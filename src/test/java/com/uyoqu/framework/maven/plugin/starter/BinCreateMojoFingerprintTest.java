@@ -0,0 +1,130 @@
+package com.uyoqu.framework.maven.plugin.starter;
+
+import com.uyoqu.framework.maven.plugin.starter.utils.BuildFingerprint;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.uyoqu.framework.maven.plugin.starter.MojoTestSupport.method;
+import static com.uyoqu.framework.maven.plugin.starter.MojoTestSupport.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 输入指纹：查找到的启动类不计入指纹，运行打包的JDK、依赖顺序及影响输出的配置计入指纹
+ */
+public class BinCreateMojoFingerprintTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File outputDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        outputDirectory = temp.newFolder("target");
+        assertTrue(new File(outputDirectory, "demo/WEB-INF/classes").mkdirs());
+    }
+
+    @Test
+    public void resolvedMainClassDoesNotChangeFingerprint() throws Exception {
+        final BinCreateMojo previous = mojo(null);
+        // 上一次打包在查找到启动类后保存指纹
+        set(previous, "mainClass", "com.example.Application");
+        fingerprint(previous).save(fingerprintFile());
+
+        assertTrue(isUpToDate(mojo(null)));
+        assertFalse(isUpToDate(mojo("com.example.Other")));
+    }
+
+    @Test
+    public void runtimeIsPartOfFingerprint() throws Exception {
+        fingerprint(mojo(null)).save(fingerprintFile());
+        // 模拟换用其他版本的JDK打包，不修改当前JVM的系统属性
+        final BinCreateMojo otherJdk = configure(new BinCreateMojo() {
+            @Override
+            String runtimeProperty(String key) {
+                return "java.version".equals(key) ? super.runtimeProperty(key) + "-other" : super.runtimeProperty(key);
+            }
+        }, null);
+        assertEquals("[runtime]", fingerprint(otherJdk).diff(BuildFingerprint.load(fingerprintFile())).toString());
+        assertTrue(isUpToDate(mojo(null)));
+    }
+
+    @Test
+    public void dependencyOrderIsPartOfFingerprint() throws Exception {
+        final BinCreateMojo previous = mojo(null);
+        set(previous, "runtimeJars", jars("a", "b"));
+        fingerprint(previous).save(fingerprintFile());
+
+        final BinCreateMojo same = mojo(null);
+        set(same, "runtimeJars", jars("a", "b"));
+        assertTrue(isUpToDate(same));
+        final BinCreateMojo reordered = mojo(null);
+        set(reordered, "runtimeJars", jars("b", "a"));
+        assertEquals("[classpath]", fingerprint(reordered).diff(BuildFingerprint.load(fingerprintFile())).toString());
+    }
+
+    @Test
+    public void reportSettingIsPartOfFingerprint() throws Exception {
+        fingerprint(mojo(null)).save(fingerprintFile());
+        final BinCreateMojo reported = mojo(null);
+        set(reported, "report", true);
+        set(reported, "reportFile", new File(outputDirectory, "demo-bin-report.json"));
+        assertFalse(isUpToDate(reported));
+    }
+
+    /**
+     * 按依赖顺序排列的运行时依赖，文件名为artifactId-1.0.jar
+     */
+    private Map<String, Artifact> jars(String... artifactIds) {
+        final Map<String, Artifact> jars = new LinkedHashMap<>();
+        for (String artifactId : artifactIds) {
+            final Artifact artifact = new DefaultArtifact("com.example", artifactId, "1.0", "runtime", "jar", null,
+                    new DefaultArtifactHandler("jar"));
+            artifact.setFile(new File(temp.getRoot(), artifactId + "-1.0.jar"));
+            jars.put(artifact.getFile().getName(), artifact);
+        }
+        return jars;
+    }
+
+    /**
+     * 按execute开始时的状态构造：已记录配置的启动类，尚未查找启动类
+     */
+    private BinCreateMojo mojo(String mainClass) throws Exception {
+        return configure(new BinCreateMojo(), mainClass);
+    }
+
+    private BinCreateMojo configure(BinCreateMojo mojo, String mainClass) throws Exception {
+        set(mojo, "mainClass", mainClass);
+        set(mojo, "configuredMainClass", mainClass);
+        set(mojo, "serverName", "demo");
+        set(mojo, "outputDirectory", outputDirectory);
+        set(mojo, "formats", "war");
+        set(mojo, "skipUnchanged", true);
+        set(mojo, "fingerprintFile", fingerprintFile());
+        set(mojo, "runtimeJars", new LinkedHashMap<String, Artifact>());
+        return mojo;
+    }
+
+    private File fingerprintFile() {
+        return new File(outputDirectory, "bin-fingerprint.txt");
+    }
+
+    private static BuildFingerprint fingerprint(BinCreateMojo mojo) throws Exception {
+        return (BuildFingerprint) method("inputFingerprint").invoke(mojo);
+    }
+
+    private static boolean isUpToDate(BinCreateMojo mojo) throws Exception {
+        return (Boolean) method("isUpToDate").invoke(mojo);
+    }
+}
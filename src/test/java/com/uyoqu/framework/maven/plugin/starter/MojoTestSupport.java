@@ -0,0 +1,39 @@
+package com.uyoqu.framework.maven.plugin.starter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * 测试中访问{@link BinCreateMojo}的私有配置及方法，配置由Maven按字段注入，没有setter
+ */
+final class MojoTestSupport {
+
+    private MojoTestSupport() {
+    }
+
+    /**
+     * 设置配置字段
+     *
+     * @param mojo  mojo
+     * @param name  字段名
+     * @param value 值
+     */
+    static void set(BinCreateMojo mojo, String name, Object value) throws Exception {
+        final Field field = BinCreateMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    /**
+     * 获取可调用的私有方法
+     *
+     * @param name           方法名
+     * @param parameterTypes 参数类型
+     * @return 方法
+     */
+    static Method method(String name, Class<?>... parameterTypes) throws Exception {
+        final Method method = BinCreateMojo.class.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+}
@@ -0,0 +1,84 @@
+package com.uyoqu.framework.maven.plugin.starter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * start.sh、stop.sh只按java命令行中本应用的标识查找进程，不匹配部署目录下的其他进程
+ */
+public class ScriptPidTest {
+
+    private static final String PS_OUTPUT = "  PID ARGS\n"
+            + "  101 java -Dbin.deployDir=/opt/demo -Djava.awt.headless=true -classpath /opt/demo/bin/classpath.jar com.demo.App\n"
+            + "  102 tail -f /opt/demo/nohup.out\n"
+            + "  103 vim /opt/demo/bin/start.sh\n"
+            + "  104 /usr/lib/jvm/bin/java -Dbin.deployDir=/opt/demo2 -server @/opt/demo2/bin/classpath.args com.demo.App\n"
+            + "  105 java -classpath /opt/demo/WEB-INF/classes:/opt/demo/WEB-INF/lib/a.jar com.demo.App\n"
+            + "  106 /opt/java/bin/java -Dbin.deployDir=/opt/demo -server @/opt/demo/bin/classpath.args com.demo.App\n"
+            + "  107 grep java -Dbin.deployDir=/opt/demo \n"
+            + "  108 java -jar /opt/demo/WEB-INF/lib/tool.jar /opt/demo/\n";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void findsOnlyThisApplication() throws Exception {
+        for (String template : new String[]{"start.txt", "stop.txt"}) {
+            assertEquals(template, "101 105 106", pids(template));
+        }
+    }
+
+    /**
+     * 以模拟的ps输出执行模板中的APP_MARKER及第一条PIDS语句
+     */
+    private String pids(String template) throws Exception {
+        final File bin = temp.newFolder();
+        final File ps = new File(bin, "ps");
+        Files.write(ps.toPath(), ("#!/bin/sh\n[ \"$1\" = \"-eo\" ] || exit 1\ncat <<'EOF'\n" + PS_OUTPUT + "EOF\n")
+                .getBytes(StandardCharsets.UTF_8));
+        assertTrue(ps.setExecutable(true));
+        final StringBuilder script = new StringBuilder("DEPLOY_DIR=/opt/demo\nCLASSES=$DEPLOY_DIR/WEB-INF/classes\n");
+        for (String line : read(template).split("\n")) {
+            if (line.startsWith("APP_MARKER=")) {
+                script.append(line).append('\n');
+            } else if (line.startsWith("PIDS=")) {
+                script.append(line).append("\necho $PIDS\n");
+                break;
+            }
+        }
+        final File file = new File(bin, "pids.sh");
+        Files.write(file.toPath(), script.toString().getBytes(StandardCharsets.UTF_8));
+        final ProcessBuilder builder = new ProcessBuilder("sh", file.getAbsolutePath()).redirectErrorStream(true);
+        builder.environment().put("PATH", bin.getAbsolutePath() + File.pathSeparator + builder.environment().get("PATH"));
+        final Process process = builder.start();
+        final String output = new String(readAll(process.getInputStream()), StandardCharsets.UTF_8).trim();
+        assertEquals(output, 0, process.waitFor());
+        return output;
+    }
+
+    private static String read(String template) throws Exception {
+        try (InputStream in = BinCreateMojo.class.getResourceAsStream("/" + template)) {
+            return new String(readAll(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
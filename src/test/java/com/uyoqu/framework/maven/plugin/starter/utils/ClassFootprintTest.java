@@ -0,0 +1,68 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClassFootprintTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void clearCache() {
+        ZipIndex.clearCache();
+    }
+
+    @Test
+    public void countsClassesInJars() throws Exception {
+        final List<File> jars = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            jars.add(jar("lib" + i + ".jar", 100, 2000));
+        }
+        final ClassFootprint footprint = new ClassFootprint().addJars(jars);
+
+        assertEquals(800, footprint.getClassCount());
+        assertEquals(800 * 2000, footprint.getBytecodeSize());
+        // 800 * (1KB + 2000B)约2.3MB，不足最小值64MB
+        assertEquals(64, footprint.metaspaceMb(25));
+        assertEquals(48, footprint.reservedCodeCacheMb(25));
+        assertEquals(12, footprint.initialCodeCacheMb(25));
+    }
+
+    @Test
+    public void metaspaceSizeIsTheRoundedEstimate() throws Exception {
+        final ClassFootprint footprint = new ClassFootprint()
+                .addJars(Collections.singletonList(jar("big.jar", 20000, 4096)));
+        // 20000 * (1024 + 4096)约97.7MB，加25%余量约122MB，按16MB向上取整为128MB
+        assertEquals(128, footprint.metaspaceMb(25));
+    }
+
+    private File jar(String name, int classes, int size) throws Exception {
+        final File file = temp.newFile(name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("module-info.class"));
+            out.write(new byte[size]);
+            out.closeEntry();
+            for (int i = 0; i < classes; i++) {
+                out.putNextEntry(new ZipEntry("com/example/" + name + "/C" + i + ".class"));
+                out.write(new byte[size]);
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+}
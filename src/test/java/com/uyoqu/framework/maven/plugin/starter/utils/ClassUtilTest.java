@@ -0,0 +1,58 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按类名匹配启动类：扫描class文件头与查询class索引的结果一致，多个匹配时完整且按类名排序
+ */
+public class ClassUtilTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void headerScanAndIndexMatchTheSameClasses() throws Exception {
+        final File classes = classesDirectory();
+        final ClassIndex index = ClassIndex.load(temp.newFile("classes.idx")).update(classes);
+        for (String matchClass : new String[]{"Zip", "Mojo", "AbstractMojo", "NoSuchClass"}) {
+            final List<String> scanned = ClassUtil.findMainClasses(classes, matchClass);
+            assertEquals(matchClass, index.findMatchClasses(matchClass), scanned);
+        }
+        // 父类名匹配：BinCreateMojo继承AbstractMojo
+        assertEquals(Collections.singletonList("com.uyoqu.framework.maven.plugin.starter.BinCreateMojo"),
+                ClassUtil.findMainClasses(classes, "AbstractMojo"));
+        assertEquals("com.uyoqu.framework.maven.plugin.starter.BinCreateMojo",
+                ClassUtil.findSingleMainClass(classes, "AbstractMojo"));
+    }
+
+    @Test
+    public void multipleMatchesAreAllReportedInOrder() throws Exception {
+        final File classes = classesDirectory();
+        final List<String> matches = ClassUtil.findMainClasses(classes, "Zip");
+        assertTrue(matches.size() > 2);
+        final List<String> sorted = new ArrayList<>(matches);
+        Collections.sort(sorted);
+        assertEquals(sorted, matches);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(matches, ClassUtil.findMainClasses(classes, "Zip"));
+        }
+        assertEquals("", ClassUtil.findSingleMainClass(classes, "Zip"));
+    }
+
+    /**
+     * 插件自身的编译输出
+     */
+    private static File classesDirectory() throws Exception {
+        return new File(ClassUtil.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
@@ -0,0 +1,112 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeflateCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void keyIncludesRuntimeId() throws Exception {
+        final File file = temp.newFile("a.txt");
+        Files.write(file.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        final DeflateCache cache = new DeflateCache(temp.newFolder("cache"), DeflateCache.DEFAULT_MAX_SIZE, 0);
+
+        assertEquals(DeflateCache.runtimeId(6), DeflateCache.runtimeId(6));
+        assertNotEquals(DeflateCache.runtimeId(1), DeflateCache.runtimeId(9));
+        assertTrue(cache.key(file, 6).endsWith("-6-" + DeflateCache.runtimeId(6)));
+    }
+
+    @Test
+    public void evictedEntryFallsBackToCompression() throws Exception {
+        final File root = temp.newFolder("tree");
+        write(new File(root, "small.txt"), 16 * 1024);
+        write(new File(root, "large.txt"), 256 * 1024);
+        final File cacheDir = temp.newFolder("cache");
+
+        final File expected = zip(root, "expected.zip", null);
+        final DeflateCache warm = new DeflateCache(cacheDir, DeflateCache.DEFAULT_MAX_SIZE, 1024);
+        zip(root, "warm.zip", warm);
+        assertTrue(warm.stats(), warm.stats().contains("写入2个"));
+
+        // 模拟其他构建在命中后、读取前淘汰缓存文件
+        final DeflateCache evicting = new DeflateCache(cacheDir, DeflateCache.DEFAULT_MAX_SIZE, 1024) {
+            @Override
+            public Entry get(String key) {
+                final Entry entry = super.get(key);
+                assertTrue(new File(new File(cacheDir, key.substring(0, 2)), key + ".deflate").delete());
+                return entry;
+            }
+        };
+        // 回退压缩的条目只统计一次进度，开始统计的进度均已结束
+        final AtomicInteger unfinished = new AtomicInteger();
+        final BuildReport report = new BuildReport("tree") {
+            @Override
+            public IoUtil.StreamProgress entry(String path) {
+                final IoUtil.StreamProgress progress = super.entry(path);
+                return new IoUtil.StreamProgress() {
+                    @Override
+                    public void start() {
+                        unfinished.incrementAndGet();
+                        progress.start();
+                    }
+
+                    @Override
+                    public void progress(long progressSize) {
+                        progress.progress(progressSize);
+                    }
+
+                    @Override
+                    public void finish() {
+                        unfinished.decrementAndGet();
+                        progress.finish();
+                    }
+                };
+            }
+        };
+        final File actual;
+        try (BuildReport.Phase ignored = report.phase("zip")) {
+            actual = zip(root, "actual.zip", evicting, report);
+        }
+        assertEquals(2, evicting.getHits());
+        assertEquals(0, unfinished.get());
+        assertTrue(report.toJson(), report.toJson().contains("\"entries\": 2,"));
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+
+    private File zip(File root, String name, DeflateCache cache) {
+        return zip(root, name, cache, null);
+    }
+
+    private File zip(File root, String name, DeflateCache cache, BuildReport report) {
+        // 内存预算64KB、2个线程时超过32KB的文件走流式压缩
+        return ZipUtil.zip(new File(temp.getRoot(), name), root, ZipConfig.create()
+                .setThreads(2)
+                .setMemoryBudget(64 * 1024)
+                .setCompressionPolicy(CompressionPolicy.defaults(Deflater.DEFAULT_COMPRESSION))
+                .setDeflateCache(cache)
+                .setReport(report));
+    }
+
+    private static void write(File file, int size) throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < size; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
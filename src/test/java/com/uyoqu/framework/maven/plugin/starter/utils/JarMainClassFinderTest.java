@@ -0,0 +1,85 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 候选类按条目名称筛选；进程内共享的扫描结果在各查找器间复用，可清空
+ */
+public class JarMainClassFinderTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void clearCache() {
+        JarMainClassFinder.clearShared();
+        ZipIndex.clearCache();
+    }
+
+    @Test
+    public void candidatesExcludeDescriptorsAndVersionedClasses() throws Exception {
+        assertTrue(JarMainClassFinder.isCandidate("app/Main.class"));
+        assertTrue(JarMainClassFinder.isCandidate("app/module_info.class"));
+        assertFalse(JarMainClassFinder.isCandidate("app/"));
+        assertFalse(JarMainClassFinder.isCandidate("app/Main.txt"));
+        assertFalse(JarMainClassFinder.isCandidate("module-info.class"));
+        assertFalse(JarMainClassFinder.isCandidate("app/package-info.class"));
+        assertFalse(JarMainClassFinder.isCandidate("META-INF/versions/9/module-info.class"));
+        assertFalse(JarMainClassFinder.isCandidate("META-INF/versions/11/app/Main.class"));
+
+        final List<File> jars = Collections.singletonList(jar("a.jar"));
+        final JarMainClassFinder finder = JarMainClassFinder.load(temp.newFile("index"));
+        assertEquals(Collections.singletonList("app.Main"), finder.findMatchClasses(jars, "Main"));
+        assertEquals(Collections.emptyList(), finder.findMatchClasses(jars, "info"));
+    }
+
+    @Test
+    public void sharedResultsAreReusedUntilCleared() throws Exception {
+        final List<File> jars = Collections.singletonList(jar("a.jar"));
+        final String annotation = "org.example.Application";
+
+        final JarMainClassFinder first = JarMainClassFinder.load(new File(temp.getRoot(), "first"));
+        first.findMainClasses(jars, annotation);
+        assertEquals(1, first.getScannedCount());
+
+        final JarMainClassFinder second = JarMainClassFinder.load(new File(temp.getRoot(), "second"));
+        second.findMainClasses(jars, annotation);
+        assertEquals(0, second.getScannedCount());
+
+        JarMainClassFinder.clearShared();
+        final JarMainClassFinder third = JarMainClassFinder.load(new File(temp.getRoot(), "third"));
+        third.findMainClasses(jars, annotation);
+        assertEquals(1, third.getScannedCount());
+    }
+
+    /**
+     * 以带有main方法的ClassIndex作为各条目的内容
+     */
+    private File jar(String name) throws Exception {
+        final byte[] main = IoUtil.readBytes(ClassIndex.class.getResourceAsStream("ClassIndex.class"));
+        final File jar = temp.newFile(name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String entry : new String[]{"app/Main.class", "app/package-info.class", "module-info.class",
+                    "META-INF/versions/9/app/Main2.class"}) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(main);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
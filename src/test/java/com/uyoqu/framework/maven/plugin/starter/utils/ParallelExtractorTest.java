@@ -0,0 +1,39 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelExtractorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void repeatedExtractionsShareThreads() throws Exception {
+        final File root = temp.newFolder("tree");
+        for (int i = 0; i < 100; i++) {
+            Files.write(new File(root, "f" + i + ".txt").toPath(), ("file " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        final File zip = ZipUtil.zip(new File(temp.getRoot(), "tree.zip"), false, root);
+        for (int i = 0; i < 5; i++) {
+            final File out = ZipUtil.unzip(zip, temp.newFolder("out" + i), StandardCharsets.UTF_8, 2);
+            assertArrayEquals("file 42".getBytes(StandardCharsets.UTF_8),
+                    Files.readAllBytes(new File(out, "f42.txt").toPath()));
+        }
+        assertTrue(unzipThreads() <= 2);
+    }
+
+    private static long unzipThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("bin-unzip-"))
+                .count();
+    }
+}
@@ -0,0 +1,40 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void blocksRoundTripAndDoNotDependOnThreads() throws Exception {
+        // 前半可压缩、后半为随机数据，覆盖压缩输出大于输入的块
+        final byte[] data = new byte[5 * ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE + 1234];
+        for (int i = 0; i < data.length / 2; i++) {
+            data[i] = (byte) ("abcdefgh".charAt(i % 8) + i / 4096 % 3);
+        }
+        final byte[] random = new byte[data.length - data.length / 2];
+        new Random(42).nextBytes(random);
+        System.arraycopy(random, 0, data, data.length / 2, random.length);
+
+        final byte[] single = gzip(data, 1);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(single, gzip(data, 4));
+        }
+        assertArrayEquals(data, IoUtil.readBytes(new GZIPInputStream(new ByteArrayInputStream(single))));
+    }
+
+    private static byte[] gzip(byte[] data, int threads) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, 6, threads)) {
+            gzip.write(data, 0, 1000);
+            gzip.write(data, 1000, data.length - 1000);
+        }
+        return out.toByteArray();
+    }
+}
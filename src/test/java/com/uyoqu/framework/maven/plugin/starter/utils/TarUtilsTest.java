@@ -0,0 +1,81 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 并行解压tar：链接条目跳过而不写成空文件，gzip头部不合法时不泄漏文件句柄
+ */
+public class TarUtilsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void linksAreSkipped() throws Exception {
+        final File tar = temp.newFile("links.tar");
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(new FileOutputStream(tar))) {
+            final TarArchiveEntry file = new TarArchiveEntry("app/a.txt");
+            file.setSize(content.length);
+            out.putArchiveEntry(file);
+            out.write(content);
+            out.closeArchiveEntry();
+            final TarArchiveEntry symlink = new TarArchiveEntry("app/passwd", TarArchiveEntry.LF_SYMLINK);
+            symlink.setLinkName("../../../etc/passwd");
+            out.putArchiveEntry(symlink);
+            out.closeArchiveEntry();
+            final TarArchiveEntry hardlink = new TarArchiveEntry("app/b.txt", TarArchiveEntry.LF_LINK);
+            hardlink.setLinkName("app/a.txt");
+            out.putArchiveEntry(hardlink);
+            out.closeArchiveEntry();
+        }
+        final File out = temp.newFolder("out");
+        TarUtils.dearchive(tar, out, 2);
+        assertArrayEquals(content, Files.readAllBytes(new File(out, "app/a.txt").toPath()));
+        assertFalse(Files.exists(new File(out, "app/passwd").toPath(), LinkOption.NOFOLLOW_LINKS));
+        assertFalse(new File(out, "app/b.txt").exists());
+    }
+
+    @Test
+    public void invalidGzipClosesFile() throws Exception {
+        final File gz = temp.newFile("broken.tar.gz");
+        Files.write(gz.toPath(), "not gzip".getBytes(StandardCharsets.UTF_8));
+        final long before = openFiles();
+        for (int i = 0; i < 20; i++) {
+            try {
+                TarUtils.dearchive(gz, temp.getRoot(), 1);
+                fail("gzip头部不合法时应抛出异常");
+            } catch (IOException expected) {
+                // 预期
+            }
+        }
+        assertTrue("文件句柄泄漏", openFiles() - before < 20);
+    }
+
+    /**
+     * 当前进程打开的文件数，只在Linux上可用
+     */
+    private static long openFiles() throws IOException {
+        try (Stream<?> fds = Files.list(Paths.get("/proc/self/fd"))) {
+            return fds.count();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 生成合成目录树，压缩后以流式解压还原并校验Zip64结构，供Zip64相关测试共用
+ */
+final class Zip64RoundTrip {
+
+    /**
+     * 每个子目录中的文件数
+     */
+    private static final int FILES_PER_DIR = 1000;
+
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+
+    private Zip64RoundTrip() {
+    }
+
+    /**
+     * 生成files个小文件，每FILES_PER_DIR个文件一个子目录
+     *
+     * @param root  根目录
+     * @param files 文件数
+     */
+    static void generate(File root, int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            final File dir = new File(root, "d" + (i / FILES_PER_DIR));
+            if (i % FILES_PER_DIR == 0 && false == dir.mkdirs()) {
+                throw new IOException("创建目录失败:" + dir);
+            }
+            Files.write(new File(dir, "f" + i + ".txt").toPath(), content(i));
+        }
+    }
+
+    /**
+     * 校验压缩包：条目数超过65535时写入Zip64目录结束记录，JDK及ZipIndex读取的条目数一致（非空目录不单独写入条目），
+     * 流式解压后文件数及抽样内容与原目录一致
+     *
+     * @param zip   压缩包
+     * @param files 文件数
+     * @param out   解压目录
+     */
+    static void verify(File zip, int files, File out) throws IOException {
+        if (files > 0xffff) {
+            assertTrue("缺少Zip64目录结束记录", hasZip64EndOfCentralDirectory(zip));
+        }
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            assertEquals(files, zipFile.size());
+        }
+        assertEquals(files, ZipIndex.open(zip, StandardCharsets.UTF_8).names().size());
+        ZipIndex.clearCache();
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(zip.toPath()))) {
+            ZipUtil.unzip(in, out, StandardCharsets.UTF_8);
+        }
+        try (Stream<Path> walk = Files.walk(out.toPath())) {
+            assertEquals(files, walk.filter(Files::isRegularFile).count());
+        }
+        for (int i : new int[]{0, files / 2, files - 1}) {
+            final File file = new File(out, "d" + (i / FILES_PER_DIR) + "/f" + i + ".txt");
+            assertArrayEquals(content(i), Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    private static byte[] content(int i) {
+        return ("file " + i + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 在压缩包末尾的目录结束记录之前查找Zip64目录结束记录
+     */
+    static boolean hasZip64EndOfCentralDirectory(File zip) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(zip, "r")) {
+            final int tail = (int) Math.min(raf.length(), 64 * 1024);
+            final byte[] bytes = new byte[tail];
+            raf.seek(raf.length() - tail);
+            raf.readFully(bytes);
+            for (int i = tail - 4; i >= 0; i--) {
+                final int sig = (bytes[i] & 0xff) | (bytes[i + 1] & 0xff) << 8
+                        | (bytes[i + 2] & 0xff) << 16 | (bytes[i + 3] & 0xff) << 24;
+                if (sig == ZIP64_EOCD_SIG) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ZipIndexTest {
+
+    /**
+     * 目录超过读取缓冲区（256KB），解析时需分段读取
+     */
+    private static final int ENTRIES = 3000;
+
+    /**
+     * 目录中包含修改时间，固定后相同内容的压缩包目录相同
+     */
+    private static final long TIME = 1577836800000L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void clearCache() {
+        ZipIndex.clearCache();
+    }
+
+    @Test
+    public void readsEntriesAcrossDirectoryBuffers() throws Exception {
+        final File zip = write(temp.newFile("a.zip"), "v1");
+        final ZipIndex index = ZipIndex.open(zip, StandardCharsets.UTF_8);
+
+        assertEquals(ENTRIES + 2, index.names().size());
+        assertTrue(index.contains("dir/"));
+        assertNull(index.read("dir/"));
+        assertArrayEquals(stored(), index.read("stored.bin"));
+        assertEquals(stored().length, index.size("stored.bin"));
+        for (int i = 0; i < ENTRIES; i += 499) {
+            assertArrayEquals(content(i, "v1"), index.read(name(i)));
+        }
+        final Map<String, byte[]> batch = index.read(Arrays.asList(name(0), name(ENTRIES - 1), "missing"));
+        assertEquals(2, batch.size());
+        assertArrayEquals(content(ENTRIES - 1, "v1"), batch.get(name(ENTRIES - 1)));
+    }
+
+    @Test
+    public void checksumFollowsContent() throws Exception {
+        final String v1 = ZipIndex.open(write(temp.newFile("a.zip"), "v1"), StandardCharsets.UTF_8).checksum();
+        final String v1Again = ZipIndex.open(write(temp.newFile("b.zip"), "v1"), StandardCharsets.UTF_8).checksum();
+        final String v2 = ZipIndex.open(write(temp.newFile("c.zip"), "v2"), StandardCharsets.UTF_8).checksum();
+        assertEquals(v1, v1Again);
+        assertNotEquals(v1, v2);
+    }
+
+    @Test
+    public void cachedIndexDoesNotHoldTheArchive() throws Exception {
+        final File zip = write(temp.newFile("a.zip"), "v1");
+        ZipIndex.open(zip, StandardCharsets.UTF_8).read(name(1));
+        assertTrue(zip.delete());
+        // 写出同名新文件后按新的大小及修改时间重新解析
+        write(zip, "v2");
+        assertTrue(zip.setLastModified(zip.lastModified() + 2000));
+        assertArrayEquals(content(1, "v2"), ZipIndex.open(zip, StandardCharsets.UTF_8).read(name(1)));
+    }
+
+    private static File write(File file, String version) throws Exception {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(entry("dir/"));
+            out.closeEntry();
+            final byte[] stored = stored();
+            final ZipEntry entry = entry("stored.bin");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(stored.length);
+            final CRC32 crc = new CRC32();
+            crc.update(stored);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(stored);
+            out.closeEntry();
+            for (int i = 0; i < ENTRIES; i++) {
+                out.putNextEntry(entry(name(i)));
+                out.write(content(i, version));
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static ZipEntry entry(String name) {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setTime(TIME);
+        return entry;
+    }
+
+    private static String name(int i) {
+        final StringBuilder name = new StringBuilder("dir/");
+        while (name.length() < 100) {
+            name.append("long-path-segment/");
+        }
+        return name.append("entry-").append(i).append(".txt").toString();
+    }
+
+    private static byte[] content(int i, String version) {
+        return ("entry " + i + " " + version + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] stored() {
+        final byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+}
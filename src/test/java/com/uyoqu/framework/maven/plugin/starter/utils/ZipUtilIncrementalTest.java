@@ -0,0 +1,86 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 增量打包：复用的条目计入构建报告，中途失败时保留原压缩包，不留下临时文件
+ */
+public class ZipUtilIncrementalTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void reusedEntriesAreReported() throws Exception {
+        final File root = tree();
+        final File zip = new File(temp.getRoot(), "tree.zip");
+        ZipUtil.zip(zip, root, config(null));
+
+        Files.write(new File(root, "f3.txt").toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        final BuildReport report = new BuildReport("tree");
+        try (BuildReport.Phase ignored = report.phase("zip")) {
+            ZipUtil.zip(zip, root, config(report));
+        }
+        final String json = report.toJson();
+        assertTrue(json, json.contains("\"entries\": 20,"));
+        assertTrue(json, json.contains("\"reusedEntries\": 19,"));
+        assertEquals(1, report.slowestEntries().size());
+        assertTrue(report.summary().get(0), report.summary().get(0).contains("20个条目(复用19个)"));
+    }
+
+    @Test
+    public void failedRewriteRemovesTempFile() throws Exception {
+        final File root = tree();
+        final File zip = new File(temp.getRoot(), "tree.zip");
+        ZipUtil.zip(zip, root, config(null));
+        final byte[] previous = Files.readAllBytes(zip.toPath());
+
+        Files.write(new File(root, "f3.txt").toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        final BuildReport failing = new BuildReport("tree") {
+            @Override
+            public IoUtil.StreamProgress entry(String path) {
+                if (path.endsWith("f3.txt")) {
+                    throw new IllegalStateException("写入中途失败");
+                }
+                return super.entry(path);
+            }
+        };
+        try {
+            ZipUtil.zip(zip, root, config(failing));
+            fail("应抛出写入失败的异常");
+        } catch (RuntimeException expected) {
+            // 预期
+        }
+        assertFalse(new File(temp.getRoot(), "tree.zip.tmp").exists());
+        assertArrayEquals(previous, Files.readAllBytes(zip.toPath()));
+    }
+
+    private File tree() throws Exception {
+        final File root = temp.newFolder("tree");
+        for (int i = 0; i < 20; i++) {
+            Files.write(new File(root, "f" + i + ".txt").toPath(), ("file " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return root;
+    }
+
+    private static ZipConfig config(BuildReport report) {
+        return ZipConfig.create()
+                .setThreads(2)
+                .setIncremental(true)
+                .setReport(report)
+                .setCompressionPolicy(CompressionPolicy.defaults(Deflater.DEFAULT_COMPRESSION));
+    }
+}
@@ -0,0 +1,53 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * 条目数超过65535时的Zip64往返测试：7万个文件分别经并行及原有压缩路径，100万个文件经并行压缩路径，
+ * 在固定堆内压缩并流式解压<br>
+ * 耗时数分钟，只在zip64-it profile中由failsafe运行：mvn -Pzip64-it verify
+ */
+public class ZipUtilZip64IT {
+
+    private static final int FILES = 70000;
+
+    private static final int MILLION_FILES = 1000000;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void parallelZipRoundTrip() throws Exception {
+        parallelRoundTrip(FILES);
+    }
+
+    @Test
+    public void legacyZipRoundTrip() throws Exception {
+        final File root = temp.newFolder("tree");
+        Zip64RoundTrip.generate(root, FILES);
+        final File zip = new File(temp.getRoot(), "tree.zip");
+        ZipUtil.zip(zip, StandardCharsets.UTF_8, false, root);
+        Zip64RoundTrip.verify(zip, FILES, temp.newFolder("out"));
+    }
+
+    @Test
+    public void millionFilesRoundTrip() throws Exception {
+        parallelRoundTrip(MILLION_FILES);
+    }
+
+    private void parallelRoundTrip(int files) throws Exception {
+        final File root = temp.newFolder("tree");
+        Zip64RoundTrip.generate(root, files);
+        final File zip = new File(temp.getRoot(), "tree.zip");
+        ZipUtil.zip(zip, root, ZipConfig.create()
+                .setThreads(2)
+                .setCompressionPolicy(CompressionPolicy.defaults(Deflater.DEFAULT_COMPRESSION)));
+        Zip64RoundTrip.verify(zip, files, temp.newFolder("out"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.uyoqu.framework.maven.plugin.starter.utils;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 强制使用Zip64扩展时少量条目的往返测试，大量条目的往返见{@link ZipUtilZip64IT}
+ */
+public class ZipUtilZip64Test {
+
+    private static final int FILES = 20;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void forcedZip64RoundTrip() throws Exception {
+        final File root = temp.newFolder("tree");
+        Zip64RoundTrip.generate(root, FILES);
+        final File zip = new File(temp.getRoot(), "tree.zip");
+        ZipUtil.zip(zip, root, ZipConfig.create()
+                .setThreads(2)
+                .setZip64Mode(Zip64Mode.Always)
+                .setCompressionPolicy(CompressionPolicy.defaults(Deflater.DEFAULT_COMPRESSION)));
+        assertTrue("缺少Zip64目录结束记录", Zip64RoundTrip.hasZip64EndOfCentralDirectory(zip));
+        Zip64RoundTrip.verify(zip, FILES, temp.newFolder("out"));
+    }
+}